@@ -1,7 +1,5 @@
 package com.example.electionsurvey2;
 
-import java.util.List;
-
 /**
  * Answer Model Class
  * Stores user's answer to a question
@@ -10,7 +8,7 @@ public class Answer {
     private int questionId;
     private String answerText;              // For text questions
     private Integer selectedOptionId;        // For single choice (using Integer to allow null)
-    private List<Integer> selectedOptionIds; // For multiple choice
+    private int[] selectedOptionIds;         // For multiple choice
 
     /**
      * Constructor for text answers
@@ -39,9 +37,9 @@ public class Answer {
     /**
      * Constructor for multiple choice answers
      * @param questionId Question ID
-     * @param selectedOptionIds List of selected option IDs
+     * @param selectedOptionIds Selected option IDs
      */
-    public Answer(int questionId, List<Integer> selectedOptionIds) {
+    public Answer(int questionId, int[] selectedOptionIds) {
         this.questionId = questionId;
         this.answerText = null;
         this.selectedOptionId = null;
@@ -73,16 +71,31 @@ public class Answer {
         this.selectedOptionId = selectedOptionId;
     }
 
-    public List<Integer> getSelectedOptionIds() {
+    public int[] getSelectedOptionIds() {
         return selectedOptionIds;
     }
 
-    public void setSelectedOptionIds(List<Integer> selectedOptionIds) {
+    public void setSelectedOptionIds(int[] selectedOptionIds) {
         this.selectedOptionIds = selectedOptionIds;
     }
-}
-
-
-
-
 
+    /**
+     * Check whether an option is part of a single or multiple choice answer
+     * @param optionId Option ID
+     * @return true if selected
+     */
+    public boolean isOptionSelected(int optionId) {
+        if (selectedOptionId != null) {
+            return selectedOptionId == optionId;
+        }
+        if (selectedOptionIds == null) {
+            return false;
+        }
+        for (int id : selectedOptionIds) {
+            if (id == optionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answer Journal
+ * Append-only, crash-safe log of the interview in progress.
+ * Every saved answer appends one small record; on relaunch the records are
+ * replayed to restore the answers and the question the interviewer was on.
+ * The file layout is described in AnswerJournalCodec. Replay stops at the
+ * first torn or corrupt frame and cuts the file there, so a crash mid-write
+ * loses at most that record.
+ *
+ * Each user, survey, area and ward has its own journal file, so opening
+ * another ward or survey leaves an interrupted interview on disk until
+ * its own selection is opened again. Interviews without a valid user,
+ * survey, area or ward (ids default to -1 in the session) cannot be told
+ * apart and are not journalled.
+ *
+ * Writes happen on a background thread. fsync is batched: records written
+ * within SYNC_DELAY_MS of each other share one sync, and flush() forces one.
+ */
+public class AnswerJournal {
+
+    private static final String TAG = "AnswerJournal";
+    private static final String FILE_NAME = "answer_journal_%d_%d_%d_%d.bin";
+    private static final long SYNC_DELAY_MS = 250;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final File file;
+    private final int userId, surveyId, areaId, wardId;
+    private final boolean enabled;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+    // Touched only on the writer thread
+    private FileOutputStream out;
+    private boolean syncScheduled = false;
+
+    /**
+     * Journal restored from disk
+     */
+    public static class Restored {
+        private final List<Answer> answers;
+        private final int nextIndex;
+
+        Restored(List<Answer> answers, int nextIndex) {
+            this.answers = answers;
+            this.nextIndex = nextIndex;
+        }
+
+        /**
+         * @return Latest answer per question
+         */
+        public List<Answer> getAnswers() {
+            return answers;
+        }
+
+        /**
+         * @return Index of the question to show next
+         */
+        public int getNextIndex() {
+            return nextIndex;
+        }
+    }
+
+    /**
+     * Callback for restore(), invoked on the main thread
+     */
+    public interface RestoreCallback {
+        void onRestored(Restored restored);
+    }
+
+    /**
+     * Constructor
+     * Only the journal written for this user, survey, area and ward is restored.
+     * @param context Context
+     * @param userId Logged in user
+     * @param surveyId Survey being answered
+     * @param areaId Selected area
+     * @param wardId Selected ward
+     */
+    public AnswerJournal(Context context, int userId, int surveyId, int areaId, int wardId) {
+        this.file = new File(context.getFilesDir(),
+                String.format(Locale.US, FILE_NAME, userId, surveyId, areaId, wardId));
+        this.userId = userId;
+        this.surveyId = surveyId;
+        this.areaId = areaId;
+        this.wardId = wardId;
+        this.enabled = userId >= 0 && surveyId >= 0 && areaId >= 0 && wardId >= 0;
+        if (!enabled) {
+            AppLog.w(TAG, "Interview not journalled, incomplete selection for survey %d", surveyId);
+        }
+    }
+
+    /**
+     * Replay the journal of an interrupted interview
+     * @param scope Scope of the activity, nothing is delivered once it is cancelled
+     * @param callback Receives the restored state, or null if there is nothing to resume
+     */
+    public void restore(RequestScope scope, RestoreCallback callback) {
+        if (!enabled || writer.isShutdown()) {
+            MAIN_HANDLER.post(() -> {
+                if (!scope.isCancelled()) {
+                    callback.onRestored(null);
+                }
+            });
+            return;
+        }
+        writer.execute(() -> {
+            Restored restored = replay();
+            MAIN_HANDLER.post(() -> {
+                if (!scope.isCancelled()) {
+                    callback.onRestored(restored);
+                }
+            });
+        });
+    }
+
+    /**
+     * Append one saved answer
+     * Encoding is a few bytes of work on the caller's thread; the write runs in the background.
+     * @param answer Answer just saved
+     * @param nextIndex Index of the question shown after this one
+     */
+    public void append(Answer answer, int nextIndex) {
+        if (!enabled) {
+            return;
+        }
+        byte[] frame;
+        try {
+            frame = AnswerJournalCodec.answerFrame(answer, nextIndex);
+        } catch (IOException | IllegalArgumentException e) {
+            // Not journalled, the answer is still kept in memory
+            return;
+        }
+
+        writer.execute(() -> write(frame));
+    }
+
+    /**
+     * Force pending records to disk, e.g. when the activity is paused
+     */
+    public void flush() {
+        writer.execute(this::sync);
+    }
+
+    /**
+     * Delete the journal once the interview is submitted or abandoned
+     */
+    public void clear() {
+        if (writer.isShutdown()) {
+            // Already closed, e.g. the activity went away while the survey was being queued
+            file.delete();
+            return;
+        }
+        writer.execute(() -> {
+            closeStream();
+            file.delete();
+        });
+    }
+
+    /**
+     * Sync and release the file, the journal stays on disk for the next launch
+     */
+    public void close() {
+        writer.execute(() -> {
+            sync();
+            closeStream();
+        });
+        writer.shutdown();
+    }
+
+    /**
+     * Runs on the writer thread
+     */
+    private void write(byte[] frame) {
+        try {
+            if (out == null) {
+                boolean fresh = !file.exists() || file.length() == 0;
+                // Encoded before opening, so a bad id never leaves answers without a start frame
+                byte[] start = fresh ? AnswerJournalCodec.startFrame(userId, surveyId, areaId, wardId) : null;
+                out = new FileOutputStream(file, true);
+                if (start != null) {
+                    out.write(start);
+                }
+            }
+            out.write(frame);
+        } catch (IOException | RuntimeException e) {
+            AppLog.e(TAG, "Unable to write journal", e);
+            closeStream();
+            return;
+        }
+
+        // After close() the final sync is already queued
+        if (!syncScheduled && !writer.isShutdown()) {
+            syncScheduled = true;
+            writer.schedule(this::sync, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs on the writer thread
+     */
+    private void sync() {
+        syncScheduled = false;
+        if (out == null) {
+            return;
+        }
+        try {
+            out.getFD().sync();
+        } catch (IOException e) {
+            closeStream();
+        }
+    }
+
+    private void closeStream() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Runs on the writer thread
+     */
+    private Restored replay() {
+        byte[] data;
+        try {
+            data = readFile();
+        } catch (IOException e) {
+            return null;
+        }
+        if (data == null) {
+            return null;
+        }
+
+        AnswerJournalCodec.Replay replay = AnswerJournalCodec.replay(data, userId, surveyId, areaId, wardId);
+        if (!replay.matches) {
+            // Start frame torn or corrupt; the file is named for this interview, so nothing else is lost
+            file.delete();
+            return null;
+        }
+        truncate(replay.validLength);
+        return replay.answers.isEmpty() ? null : new Restored(replay.answers, replay.nextIndex);
+    }
+
+    /**
+     * @return Whole journal, or null if there is none; journals are a few KB at most
+     */
+    private byte[] readFile() throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) file.length());
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    private void truncate(long length) {
+        if (file.length() <= length) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        } catch (IOException e) {
+            file.delete();
+        }
+    }
+}
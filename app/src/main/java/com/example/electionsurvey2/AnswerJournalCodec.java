@@ -0,0 +1,216 @@
+package com.example.electionsurvey2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Answer Journal Codec
+ * Frame encoding and replay of the AnswerJournal file, without any file I/O.
+ *
+ * File layout: a sequence of frames
+ *   frame    body_length body crc32(body, 4 bytes big-endian)
+ *   body     type ...
+ *            type 0 start   user_id survey_id area_id ward_id
+ *            type 1 answer  question_id next_index kind value
+ *                           kind 0 text     byte_length utf8_bytes
+ *                           kind 1 single   option_id
+ *                           kind 2 multiple option_count option_id*
+ * Integers are unsigned varints. Replay stops at the first torn or corrupt
+ * frame, so a crash mid-write loses at most that record.
+ */
+final class AnswerJournalCodec {
+
+    private static final int TYPE_START = 0;
+    private static final int TYPE_ANSWER = 1;
+
+    private static final int KIND_TEXT = 0;
+    private static final int KIND_SINGLE = 1;
+    private static final int KIND_MULTIPLE = 2;
+
+    private AnswerJournalCodec() {
+    }
+
+    /**
+     * Result of replaying a journal
+     */
+    static final class Replay {
+        // false if the journal belongs to another interview
+        final boolean matches;
+        // Latest answer per question, in first-answered order
+        final List<Answer> answers;
+        final int nextIndex;
+        // Bytes up to the end of the last good frame, the rest is torn or corrupt
+        final long validLength;
+
+        Replay(boolean matches, List<Answer> answers, int nextIndex, long validLength) {
+            this.matches = matches;
+            this.answers = answers;
+            this.nextIndex = nextIndex;
+            this.validLength = validLength;
+        }
+    }
+
+    /**
+     * Encode the frame that opens every journal
+     * @throws IllegalArgumentException if an id is negative
+     */
+    static byte[] startFrame(int userId, int surveyId, int areaId, int wardId) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(16);
+        body.write(TYPE_START);
+        Varints.write(body, userId);
+        Varints.write(body, surveyId);
+        Varints.write(body, areaId);
+        Varints.write(body, wardId);
+        return frame(body.toByteArray());
+    }
+
+    /**
+     * Encode one saved answer
+     * @param answer Answer just saved
+     * @param nextIndex Index of the question shown after this one
+     * @throws IllegalArgumentException if an id is negative
+     */
+    static byte[] answerFrame(Answer answer, int nextIndex) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(32);
+        body.write(TYPE_ANSWER);
+        Varints.write(body, answer.getQuestionId());
+        Varints.write(body, nextIndex);
+        if (answer.getSelectedOptionIds() != null) {
+            body.write(KIND_MULTIPLE);
+            Varints.write(body, answer.getSelectedOptionIds().length);
+            for (int optionId : answer.getSelectedOptionIds()) {
+                Varints.write(body, optionId);
+            }
+        } else if (answer.getSelectedOptionId() != null) {
+            body.write(KIND_SINGLE);
+            Varints.write(body, answer.getSelectedOptionId());
+        } else {
+            byte[] text = answer.getAnswerText().getBytes(StandardCharsets.UTF_8);
+            body.write(KIND_TEXT);
+            Varints.write(body, text.length);
+            body.write(text, 0, text.length);
+        }
+        return frame(body.toByteArray());
+    }
+
+    /**
+     * Replay a whole journal file
+     * The first frame must be the start frame of this interview.
+     * @param data File contents
+     * @return Replayed answers and how much of the file is intact
+     */
+    static Replay replay(byte[] data, int userId, int surveyId, int areaId, int wardId) {
+        ByteArrayInputStream in = new ByteArrayInputStream(data);
+        Map<Integer, Answer> answers = new LinkedHashMap<>();
+        int nextIndex = 0;
+        long validLength = 0;
+        boolean matches = false;
+
+        try {
+            byte[] body;
+            while ((body = readFrame(in)) != null) {
+                ByteArrayInputStream record = new ByteArrayInputStream(body);
+                int type = record.read();
+                if (validLength == 0) {
+                    // First record must describe this interview
+                    matches = type == TYPE_START
+                            && Varints.read(record) == userId
+                            && Varints.read(record) == surveyId
+                            && Varints.read(record) == areaId
+                            && Varints.read(record) == wardId;
+                    if (!matches) {
+                        break;
+                    }
+                } else if (type == TYPE_ANSWER) {
+                    int questionId = (int) Varints.read(record);
+                    int index = (int) Varints.read(record);
+                    Answer answer = readAnswer(questionId, record);
+
+                    // A later record for the same question replaces the earlier one
+                    answers.put(questionId, answer);
+                    nextIndex = index;
+                }
+                validLength = data.length - in.available();
+            }
+        } catch (IOException e) {
+            // Corrupt record, keep everything before it
+        }
+
+        return new Replay(matches, new ArrayList<>(answers.values()), nextIndex, validLength);
+    }
+
+    /**
+     * Read one frame and verify its checksum
+     * @return Frame body, or null at the end of the file
+     * @throws IOException if the frame is torn or its checksum does not match
+     */
+    private static byte[] readFrame(ByteArrayInputStream in) throws IOException {
+        if (in.available() == 0) {
+            return null;
+        }
+        long length = Varints.read(in);
+        if (length > in.available() - 4) {
+            throw new EOFException("Torn record");
+        }
+        byte[] body = new byte[(int) length];
+        in.read(body, 0, body.length);
+
+        long stored = ((long) in.read() << 24) | (in.read() << 16) | (in.read() << 8) | in.read();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        if (crc.getValue() != stored) {
+            throw new IOException("Checksum mismatch");
+        }
+        return body;
+    }
+
+    private static Answer readAnswer(int questionId, InputStream record) throws IOException {
+        int kind = record.read();
+        switch (kind) {
+            case KIND_SINGLE:
+                return new Answer(questionId, (int) Varints.read(record));
+            case KIND_MULTIPLE:
+                int count = (int) Varints.read(record);
+                if (count > record.available()) {
+                    throw new EOFException("Truncated option list");
+                }
+                int[] optionIds = new int[count];
+                for (int i = 0; i < count; i++) {
+                    optionIds[i] = (int) Varints.read(record);
+                }
+                return new Answer(questionId, optionIds);
+            case KIND_TEXT:
+                byte[] text = new byte[(int) Varints.read(record)];
+                if (record.read(text, 0, text.length) != text.length) {
+                    throw new EOFException("Truncated answer text");
+                }
+                return new Answer(questionId, new String(text, StandardCharsets.UTF_8));
+            default:
+                throw new IOException("Unknown answer kind " + kind);
+        }
+    }
+
+    private static byte[] frame(byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        long checksum = crc.getValue();
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(body.length + 8);
+        Varints.write(frame, body.length);
+        frame.write(body, 0, body.length);
+        frame.write((int) (checksum >>> 24));
+        frame.write((int) (checksum >>> 16));
+        frame.write((int) (checksum >>> 8));
+        frame.write((int) checksum);
+        return frame.toByteArray();
+    }
+}
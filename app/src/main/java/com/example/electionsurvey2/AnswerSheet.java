@@ -0,0 +1,166 @@
+package com.example.electionsurvey2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answer Sheet
+ * Answers of one interview, stored in an array indexed by question position.
+ * A bitmap of unanswered questions makes "how many are left" and
+ * "jump to the first unanswered one" constant-time lookups on any
+ * questionnaire size.
+ * A second bitmap holds the questions reachable under the survey's skip
+ * logic. It is updated incrementally on every saved answer; questions that
+ * are skipped do not count as unanswered and their answers are not submitted.
+ */
+public class AnswerSheet {
+
+    private final Answer[] answers;
+    private final BitSet unanswered;
+    private final BitSet reachable;
+    private final BitSet pending;
+    private final SkipLogic skipLogic;
+    private final Map<Integer, Integer> indexById;
+
+    /**
+     * Constructor
+     * @param questions Questions in display order
+     */
+    public AnswerSheet(List<Question> questions) {
+        int count = questions.size();
+        answers = new Answer[count];
+        unanswered = new BitSet(count);
+        unanswered.set(0, count);
+
+        // Branching rules are compiled once per questionnaire
+        skipLogic = new SkipLogic(questions);
+        reachable = new BitSet(count);
+        pending = new BitSet(count);
+        skipLogic.evaluateAll(answers, reachable);
+
+        indexById = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            indexById.put(questions.get(i).getId(), i);
+        }
+    }
+
+    /**
+     * Position of a question
+     * @param questionId Question ID
+     * @return Index, or -1 if the question is not part of this sheet
+     */
+    public int indexOf(int questionId) {
+        Integer index = indexById.get(questionId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Store or replace the answer to a question
+     * @param index Question position
+     * @param answer Answer
+     */
+    public void put(int index, Answer answer) {
+        answers[index] = answer;
+        unanswered.clear(index);
+        skipLogic.update(index, answers, reachable);
+    }
+
+    /**
+     * @param index Question position
+     * @return Saved answer, or null if unanswered
+     */
+    public Answer get(int index) {
+        return answers[index];
+    }
+
+    public boolean isAnswered(int index) {
+        return answers[index] != null;
+    }
+
+    /**
+     * @param index Question position
+     * @return true if the question is asked given the answers so far
+     */
+    public boolean isReachable(int index) {
+        return reachable.get(index);
+    }
+
+    /**
+     * @param index Current question position, -1 to start from the beginning
+     * @return Position of the next question to ask, or -1 if there is none
+     */
+    public int nextReachable(int index) {
+        return reachable.nextSetBit(index + 1);
+    }
+
+    /**
+     * @return Number of questions asked given the answers so far
+     */
+    public int getReachableCount() {
+        return reachable.cardinality();
+    }
+
+    /**
+     * @param index Question position
+     * @return 1-based number of the question among those asked
+     */
+    public int getReachableNumber(int index) {
+        return reachable.get(0, index).cardinality() + 1;
+    }
+
+    /**
+     * @return Number of reachable questions still unanswered
+     */
+    public int getUnansweredCount() {
+        return pending().cardinality();
+    }
+
+    /**
+     * @return Position of the first reachable unanswered question, or -1 if there is none
+     */
+    public int firstUnanswered() {
+        return pending().nextSetBit(0);
+    }
+
+    public boolean isComplete() {
+        return pending().isEmpty();
+    }
+
+    /**
+     * Forget every answer, ready for the next respondent
+     */
+    public void clear() {
+        Arrays.fill(answers, null);
+        unanswered.set(0, answers.length);
+        skipLogic.evaluateAll(answers, reachable);
+    }
+
+    /**
+     * Answers to skipped questions are kept in case the interviewer changes
+     * the answer that skipped them, but they are not returned here
+     * @return Saved answers to reachable questions in question order
+     */
+    public List<Answer> getAnswers() {
+        List<Answer> result = new ArrayList<>(getReachableCount());
+        for (int i = reachable.nextSetBit(0); i >= 0; i = reachable.nextSetBit(i + 1)) {
+            if (answers[i] != null) {
+                result.add(answers[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unanswered questions that are asked, in a reused set
+     */
+    private BitSet pending() {
+        pending.clear();
+        pending.or(unanswered);
+        pending.and(reachable);
+        return pending;
+    }
+}
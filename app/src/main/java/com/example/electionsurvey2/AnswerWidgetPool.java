@@ -0,0 +1,207 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.View;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer Widget Pool
+ * Owns the answer widgets of SurveyActivity and rebinds them to each new
+ * question instead of creating fresh views on every Next tap.
+ * All widgets stay attached to the answer container. Unused ones are
+ * hidden with GONE, so a question change only updates text, ids and
+ * visibility, and it allocates nothing once the pool has grown to the
+ * largest question.
+ */
+public class AnswerWidgetPool {
+
+    private final Context context;
+    private final LinearLayout container;
+
+    private EditText editText;
+    private RadioGroup radioGroup;
+    private final List<RadioButton> radioButtons = new ArrayList<>();
+    private final List<CheckBox> checkBoxes = new ArrayList<>();
+
+    // Number of pooled checkboxes bound to the current question
+    private int activeCheckBoxes = 0;
+
+    /**
+     * Constructor
+     * @param context Activity context
+     * @param container Layout the widgets live in
+     */
+    public AnswerWidgetPool(Context context, LinearLayout container) {
+        this.context = context;
+        this.container = container;
+    }
+
+    /**
+     * Create every widget the questionnaire will need up front, while it is loading
+     * @param questions All questions of the survey
+     */
+    public void prepare(List<Question> questions) {
+        int maxSingle = 0;
+        int maxMultiple = 0;
+        boolean hasText = false;
+        for (Question question : questions) {
+            int kind = question.getInputSpec().getKind();
+            if (kind == InputSpec.KIND_SINGLE) {
+                maxSingle = Math.max(maxSingle, question.getOptions().size());
+            } else if (kind == InputSpec.KIND_MULTIPLE) {
+                maxMultiple = Math.max(maxMultiple, question.getOptions().size());
+            } else {
+                hasText = true;
+            }
+        }
+
+        if (hasText) {
+            obtainEditText();
+        }
+        if (maxSingle > 0) {
+            ensureRadioButtons(maxSingle);
+        }
+        ensureCheckBoxes(maxMultiple);
+    }
+
+    /**
+     * Hide every widget, before showing the next question
+     */
+    public void hideAll() {
+        if (editText != null) {
+            editText.setVisibility(View.GONE);
+        }
+        if (radioGroup != null) {
+            radioGroup.setVisibility(View.GONE);
+        }
+        for (int i = 0; i < activeCheckBoxes; i++) {
+            checkBoxes.get(i).setVisibility(View.GONE);
+        }
+        activeCheckBoxes = 0;
+    }
+
+    /**
+     * Show the text input configured for a question
+     * @param spec Compiled input rules
+     * @return Empty, visible text input
+     */
+    public EditText bindText(InputSpec spec) {
+        EditText input = obtainEditText();
+        // Filters first so they never reject the reset
+        input.setFilters(spec.getFilters());
+        input.setInputType(spec.getInputType());
+        input.setHint(spec.getHint());
+        input.setText("");
+        input.setVisibility(View.VISIBLE);
+        return input;
+    }
+
+    /**
+     * Show radio buttons for a single choice question
+     * Button ids are the option ids, as getCheckedRadioButtonId() expects.
+     * @param options Options to show
+     * @return Visible radio group with nothing checked
+     */
+    public RadioGroup bindSingle(List<Option> options) {
+        ensureRadioButtons(options.size());
+        // Clear while the old ids are still in place
+        radioGroup.clearCheck();
+
+        for (int i = 0; i < radioButtons.size(); i++) {
+            RadioButton radioButton = radioButtons.get(i);
+            if (i < options.size()) {
+                Option option = options.get(i);
+                radioButton.setId(option.getId());
+                radioButton.setText(option.getOptionText());
+                radioButton.setVisibility(View.VISIBLE);
+            } else {
+                radioButton.setId(View.NO_ID);
+                radioButton.setVisibility(View.GONE);
+            }
+        }
+
+        radioGroup.setVisibility(View.VISIBLE);
+        return radioGroup;
+    }
+
+    /**
+     * Show checkboxes for a multiple choice question
+     * @param options Options to show
+     * @return The bound, unchecked checkboxes; valid until the next bind
+     */
+    public List<CheckBox> bindMultiple(List<Option> options) {
+        ensureCheckBoxes(options.size());
+
+        for (int i = 0; i < options.size(); i++) {
+            Option option = options.get(i);
+            CheckBox checkBox = checkBoxes.get(i);
+            checkBox.setChecked(false);
+            checkBox.setId(option.getId());
+            checkBox.setText(option.getOptionText());
+            checkBox.setVisibility(View.VISIBLE);
+        }
+        activeCheckBoxes = options.size();
+
+        return Collections.unmodifiableList(checkBoxes.subList(0, activeCheckBoxes));
+    }
+
+    private EditText obtainEditText() {
+        if (editText == null) {
+            editText = new EditText(context);
+            editText.setLayoutParams(new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT
+            ));
+            editText.setPadding(16, 16, 16, 16);
+            editText.setBackgroundResource(android.R.drawable.edit_text);
+            editText.setTextSize(16);
+            editText.setVisibility(View.GONE);
+            container.addView(editText);
+        }
+        return editText;
+    }
+
+    private void ensureRadioButtons(int count) {
+        if (radioGroup == null) {
+            radioGroup = new RadioGroup(context);
+            radioGroup.setOrientation(RadioGroup.VERTICAL);
+            radioGroup.setLayoutParams(new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT
+            ));
+            radioGroup.setVisibility(View.GONE);
+            container.addView(radioGroup);
+        }
+
+        while (radioButtons.size() < count) {
+            RadioButton radioButton = new RadioButton(context);
+            radioButton.setTextSize(16);
+            radioButton.setPadding(16, 16, 16, 16);
+            radioButton.setTextColor(Color.BLACK);
+            radioButton.setVisibility(View.GONE);
+            radioButtons.add(radioButton);
+            radioGroup.addView(radioButton);
+        }
+    }
+
+    private void ensureCheckBoxes(int count) {
+        while (checkBoxes.size() < count) {
+            CheckBox checkBox = new CheckBox(context);
+            checkBox.setTextSize(16);
+            checkBox.setPadding(16, 16, 16, 16);
+            checkBox.setTextColor(Color.BLACK);
+            checkBox.setVisibility(View.GONE);
+            checkBoxes.add(checkBox);
+            container.addView(checkBox);
+        }
+    }
+}
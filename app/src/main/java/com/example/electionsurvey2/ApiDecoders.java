@@ -0,0 +1,217 @@
+package com.example.electionsurvey2;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API Decoders
+ * Streaming JSON decoders that build model objects directly from the
+ * response body, field by field, without an intermediate JSONObject tree
+ */
+public final class ApiDecoders {
+
+    private ApiDecoders() {
+    }
+
+    /**
+     * Decodes { "id", "area_name" }
+     */
+    public static final ApiService.Decoder<Area> AREA = reader -> {
+        int id = 0;
+        String areaName = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "area_name":
+                    areaName = ApiService.nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return areaName != null ? new Area(id, areaName) : null;
+    };
+
+    /**
+     * Decodes { "id", "ward_name" }
+     */
+    public static final ApiService.Decoder<Ward> WARD = reader -> {
+        int id = 0;
+        String wardName = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "ward_name":
+                    wardName = ApiService.nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return wardName != null ? new Ward(id, wardName) : null;
+    };
+
+    /**
+     * Decodes { "id", "option_text" }
+     */
+    public static final ApiService.Decoder<Option> OPTION = reader -> {
+        int id = 0;
+        String optionText = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "option_text":
+                    optionText = ApiService.nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return optionText != null ? new Option(id, optionText) : null;
+    };
+
+    /**
+     * Decodes { "id", "question_text", "type", "field_type", "show_if_option_id", "options": [...] }
+     * Questions missing their text or type are skipped
+     */
+    public static final ApiService.Decoder<Question> QUESTION = new ApiService.Decoder<Question>() {
+        private final ApiService.Decoder<List<Option>> optionsDecoder = ApiService.listOf(OPTION);
+
+        @Override
+        public Question decode(JsonReader reader) throws IOException {
+            int id = 0;
+            String questionText = null;
+            String type = null;
+            String fieldType = null;
+            Integer showIfOptionId = null;
+            List<Option> options = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        id = reader.nextInt();
+                        break;
+                    case "question_text":
+                        questionText = ApiService.nextStringOrNull(reader);
+                        break;
+                    case "type":
+                        type = ApiService.nextStringOrNull(reader);
+                        break;
+                    case "field_type":
+                        fieldType = ApiService.nextStringOrNull(reader);
+                        break;
+                    case "show_if_option_id":
+                        showIfOptionId = ApiService.nextIntegerOrNull(reader);
+                        break;
+                    case "options":
+                        options = optionsDecoder.decode(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (questionText == null || type == null) {
+                return null;
+            }
+            // Text questions come without options
+            return new Question(id, questionText, type, fieldType, showIfOptionId,
+                    options != null ? options : new ArrayList<>());
+        }
+    };
+
+    /**
+     * Decodes { "id", "title", "description", "question_count", "version" }
+     */
+    public static final ApiService.Decoder<Survey> SURVEY = reader -> {
+        int id = 0;
+        String title = null;
+        String description = null;
+        int questionCount = 0;
+        long version = Survey.VERSION_UNKNOWN;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "title":
+                    title = ApiService.nextStringOrNull(reader);
+                    break;
+                case "description":
+                    description = ApiService.nextStringOrNull(reader);
+                    break;
+                case "question_count":
+                    questionCount = reader.nextInt();
+                    break;
+                case "version":
+                    version = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Survey(id, title != null ? title : "Survey " + id, description, questionCount, version);
+    };
+
+    /**
+     * Decodes the login response { "id", "name", "phone" }
+     */
+    public static final ApiService.Decoder<User> USER = reader -> {
+        int id = 0;
+        String name = null;
+        String phone = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "name":
+                    name = ApiService.nextStringOrNull(reader);
+                    break;
+                case "phone":
+                    phone = ApiService.nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new User(id, name, phone);
+    };
+
+    // List decoders for the reference data endpoints
+    public static final ApiService.Decoder<List<Area>> AREA_LIST = ApiService.listOf(AREA);
+    public static final ApiService.Decoder<List<Ward>> WARD_LIST = ApiService.listOf(WARD);
+    public static final ApiService.Decoder<List<Question>> QUESTION_LIST = ApiService.listOf(QUESTION);
+    public static final ApiService.Decoder<List<Survey>> SURVEY_LIST = ApiService.listOf(SURVEY);
+}
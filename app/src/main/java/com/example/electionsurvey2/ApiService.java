@@ -1,17 +1,38 @@
 package com.example.electionsurvey2;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
+import okhttp3.Cache;
 import okhttp3.Call;
 import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
  * API Service - Utility class for making HTTP requests
@@ -19,6 +40,8 @@ import okhttp3.Response;
  */
 public class ApiService {
 
+    private static final String TAG = "ApiService";
+
     // Base URL - Remote server IP address
     public static final String BASE_URL = "http://143.110.252.32:4000";
 
@@ -27,38 +50,183 @@ public class ApiService {
     public static final String LOGIN = "/api/login";
     public static final String AREAS = "/api/areas";
     public static final String WARDS = "/api/wards/"; // + areaId
+    public static final String SURVEYS = "/api/surveys";
     public static final String SURVEY_QUESTIONS = "/api/surveys/"; // + surveyId + /questions
     public static final String SAVE_RESPONSES = "/api/responses";
+    public static final String SAVE_RESPONSES_BATCH = "/api/responses/batch";
+
+    // Connection reuse: one pool for the whole process, kept alive between screens
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    // HTTP cache for reference data (areas, wards, questions), revalidated with ETags
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // Single-flight registry of running GETs, keyed by method and URL
+    private static final Map<String, InFlight<?>> IN_FLIGHT = new HashMap<>();
+    private static volatile OkHttpClient client;
+    private static File cacheDir;
+    private static final AtomicBoolean prewarming = new AtomicBoolean();
 
-    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-    private static OkHttpClient client;
+    // Shared health state of the API host, consulted before every request
+    private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker();
+    private static final LatencyTracker LATENCY_TRACKER = new LatencyTracker();
 
     /**
-     * Get singleton OkHttpClient instance
+     * Initialize with application context, must be called before the first request
+     * @param context Application context
+     */
+    public static void init(Context context) {
+        cacheDir = new File(context.getCacheDir(), HTTP_CACHE_DIR);
+    }
+
+    /**
+     * Get the process-wide OkHttpClient instance
+     * Every request in the app goes through this client so they all share
+     * one connection pool and never pay for a second handshake.
      */
     public static OkHttpClient getClient() {
         if (client == null) {
-            client = new OkHttpClient.Builder()
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS)
-                    .build();
+            synchronized (ApiService.class) {
+                if (client == null) {
+                    client = buildClient();
+                }
+            }
         }
         return client;
     }
 
+    /**
+     * Build the tuned client
+     */
+    private static OkHttpClient buildClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .retryOnConnectionFailure(true)
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .addInterceptor(new ResilienceInterceptor(CIRCUIT_BREAKER, LATENCY_TRACKER))
+                .eventListenerFactory(NetworkMetrics.getInstance().eventListenerFactory());
+
+        // Bounded disk cache: unchanged reference data comes back as a 304 with no body
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir, HTTP_CACHE_SIZE));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Get the circuit breaker guarding the API host
+     * Background work can use it to wait out an overloaded server.
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return CIRCUIT_BREAKER;
+    }
+
+    /**
+     * Normalize a request path into an endpoint key
+     * Numeric path segments are replaced so "/api/wards/3" and "/api/wards/7"
+     * share statistics as "/api/wards/:id".
+     * @param path Encoded URL path
+     * @return Endpoint key
+     */
+    public static String endpointKey(String path) {
+        StringBuilder key = new StringBuilder(path.length());
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start + 1);
+            if (end == -1) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            key.append(isNumericSegment(segment) ? "/:id" : segment);
+            start = end;
+        }
+        return key.toString();
+    }
+
+    private static boolean isNumericSegment(String segment) {
+        if (segment.length() < 2 || segment.charAt(0) != '/') {
+            return false;
+        }
+        for (int i = 1; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * User-facing message for a failed call
+     */
+    static String connectionErrorMessage(IOException e) {
+        if (e instanceof CircuitBreaker.CircuitOpenException) {
+            return "Server is busy, please try again shortly";
+        }
+        return "Unable to connect to server";
+    }
+
+    /**
+     * Open a connection to the API host ahead of the first real request
+     * Sends a tiny HEAD request so the TCP handshake happens while the user
+     * is still typing; the connection then waits in the pool for login.
+     * Does nothing if an idle connection is already available.
+     */
+    public static void prewarm() {
+        OkHttpClient httpClient = getClient();
+        if (httpClient.connectionPool().idleConnectionCount() > 0 || !prewarming.compareAndSet(false, true)) {
+            return;
+        }
+
+        Request request = new Request.Builder()
+                .url(BASE_URL + "/")
+                .head()
+                .build();
+
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // Best effort, the real request will connect on its own
+                prewarming.set(false);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                prewarming.set(false);
+            }
+        });
+    }
+
     /**
      * Make GET request
      * @param endpoint API endpoint path
      * @param callback Response callback
+     * @return The enqueued call, for cancellation
      */
-    public static void get(String endpoint, Callback callback) {
+    public static Call get(String endpoint, Callback callback) {
         Request request = new Request.Builder()
                 .url(BASE_URL + endpoint)
                 .get()
                 .build();
 
-        getClient().newCall(request).enqueue(callback);
+        Call call = getClient().newCall(request);
+        call.enqueue(callback);
+        return call;
     }
 
     /**
@@ -66,16 +234,62 @@ public class ApiService {
      * @param endpoint API endpoint path
      * @param jsonBody JSON request body
      * @param callback Response callback
+     * @return The enqueued call, for cancellation
      */
-    public static void post(String endpoint, JSONObject jsonBody, Callback callback) {
+    public static Call post(String endpoint, JSONObject jsonBody, Callback callback) {
+        return post(endpoint, jsonBody, null, callback);
+    }
+
+    /**
+     * Make POST request with JSON body, tagged with the scope that started it
+     * @param endpoint API endpoint path
+     * @param jsonBody JSON request body
+     * @param scope Owning scope, or null
+     * @param callback Response callback
+     * @return The enqueued call, for cancellation
+     */
+    private static Call post(String endpoint, JSONObject jsonBody, RequestScope scope, Callback callback) {
         RequestBody body = RequestBody.create(jsonBody.toString(), JSON);
         
         Request request = new Request.Builder()
                 .url(BASE_URL + endpoint)
                 .post(body)
+                .tag(RequestScope.class, scope)
                 .build();
 
-        getClient().newCall(request).enqueue(callback);
+        Call call = getClient().newCall(request);
+        call.enqueue(callback);
+        return call;
+    }
+
+    /**
+     * Make blocking POST request with a raw body, optionally gzip-compressed
+     * Must only be called from a background thread
+     * @param endpoint API endpoint path
+     * @param content Request body bytes
+     * @param contentType Media type of the body
+     * @param gzip Whether to compress the body with Content-Encoding: gzip
+     * @return OkHttp response, caller must close it
+     * @throws IOException on network failure
+     */
+    public static Response postBytesSync(String endpoint, byte[] content, MediaType contentType, boolean gzip) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(BASE_URL + endpoint);
+
+        if (gzip) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(buffer)) {
+                gzipStream.write(content);
+            }
+            content = buffer.toByteArray();
+            builder.header("Content-Encoding", "gzip");
+        }
+
+        Request request = builder
+                .post(RequestBody.create(content, contentType))
+                .build();
+
+        return getClient().newCall(request).execute();
     }
 
     /**
@@ -88,7 +302,7 @@ public class ApiService {
             String responseBody = response.body().string();
             return new JSONObject(responseBody);
         } catch (Exception e) {
-            e.printStackTrace();
+            AppLog.w(TAG, "Unable to parse response", e);
             return null;
         }
     }
@@ -108,7 +322,7 @@ public class ApiService {
         Callback callback = new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
-                apiCallback.onError("Unable to connect to server");
+                apiCallback.onError(connectionErrorMessage(e));
             }
 
             @Override
@@ -132,7 +346,287 @@ public class ApiService {
             get(endpoint, callback);
         }
     }
-}
 
+    /**
+     * Decodes one JSON value from a streaming reader into a typed model
+     */
+    public interface Decoder<T> {
+        T decode(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Typed response callback, always invoked on the main thread
+     */
+    public interface DataCallback<T> {
+        void onSuccess(T data);
+        void onError(String error);
+    }
 
+    /**
+     * Make GET request and decode the "data" field of the response
+     * The body is streamed and decoded on the network thread; only the
+     * finished model is handed to the main thread.
+     * Identical GETs issued while one is already in flight do not hit the
+     * network again: they join the running call and receive its result.
+     * @param endpoint API endpoint path
+     * @param decoder Decoder for the "data" field
+     * @param callback Callback invoked on the main thread
+     */
+    public static <T> void getData(String endpoint, Decoder<T> decoder, DataCallback<T> callback) {
+        getData(endpoint, decoder, null, callback);
+    }
 
+    /**
+     * Make GET request bound to a scope
+     * Cancelling the scope drops the callback; the network call itself is
+     * cancelled only when no other caller has joined it.
+     * @param endpoint API endpoint path
+     * @param decoder Decoder for the "data" field
+     * @param scope Owning scope, or null for a call that runs to completion
+     * @param callback Callback invoked on the main thread while the scope is alive
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void getData(String endpoint, Decoder<T> decoder, RequestScope scope, DataCallback<T> callback) {
+        if (scope != null && scope.isCancelled()) {
+            return;
+        }
+        String key = "GET " + BASE_URL + endpoint;
+        InFlight<T> flight;
+
+        synchronized (IN_FLIGHT) {
+            InFlight<?> running = IN_FLIGHT.get(key);
+            boolean join = running != null && running.decoder == decoder;
+            flight = join ? (InFlight<T>) running : new InFlight<>(key, decoder);
+            subscribe(flight, scope, callback);
+            if (join) {
+                return;
+            }
+            if (running == null) {
+                IN_FLIGHT.put(key, flight);
+            }
+        }
+
+        flight.call = get(endpoint, new DecodingCallback<>(decoder, flight));
+        if (flight.abandoned) {
+            // Every subscriber left before the call existed
+            flight.call.cancel();
+        }
+    }
+
+    /**
+     * Add a callback to a shared call, scoped callbacks unsubscribe when their scope is cancelled
+     * Must hold the IN_FLIGHT lock
+     */
+    private static <T> void subscribe(InFlight<T> flight, RequestScope scope, DataCallback<T> callback) {
+        if (scope == null) {
+            flight.callbacks.add(callback);
+            return;
+        }
+        // The cancel hook needs the wrapper it belongs to
+        AtomicReference<RequestScope.ScopedCallback<T>> scoped = new AtomicReference<>();
+        scoped.set(scope.wrap(callback, () -> flight.unsubscribe(scoped.get())));
+        flight.callbacks.add(scoped.get());
+    }
+
+    /**
+     * Make POST request with JSON body and decode the "data" field of the response
+     * @param endpoint API endpoint path
+     * @param jsonBody JSON request body
+     * @param decoder Decoder for the "data" field
+     * @param callback Callback invoked on the main thread
+     */
+    public static <T> void postData(String endpoint, JSONObject jsonBody, Decoder<T> decoder, DataCallback<T> callback) {
+        post(endpoint, jsonBody, new DecodingCallback<>(decoder, callback));
+    }
+
+    /**
+     * Make POST request bound to a scope, cancelled together with the scope
+     * @param endpoint API endpoint path
+     * @param jsonBody JSON request body
+     * @param decoder Decoder for the "data" field
+     * @param scope Owning scope
+     * @param callback Callback invoked on the main thread while the scope is alive
+     */
+    public static <T> void postData(String endpoint, JSONObject jsonBody, Decoder<T> decoder,
+                                    RequestScope scope, DataCallback<T> callback) {
+        if (scope.isCancelled()) {
+            return;
+        }
+        Call[] call = new Call[1];
+        DataCallback<T> scoped = scope.wrap(callback, () -> call[0].cancel());
+        call[0] = post(endpoint, jsonBody, scope, new DecodingCallback<>(decoder, scoped));
+    }
+
+    /**
+     * Decoder for a JSON array, skipping elements the item decoder returns null for
+     * @param itemDecoder Decoder for one element
+     * @return List decoder
+     */
+    public static <T> Decoder<List<T>> listOf(Decoder<T> itemDecoder) {
+        return reader -> {
+            List<T> items = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                T item = itemDecoder.decode(reader);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+            reader.endArray();
+            return items;
+        };
+    }
+
+    /**
+     * Read a string value, mapping JSON null to null
+     */
+    public static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Read an integer value, mapping JSON null to null
+     */
+    public static Integer nextIntegerOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextInt();
+    }
+
+    /**
+     * One shared network call and every callback waiting for its result
+     */
+    private static class InFlight<T> implements DataCallback<T> {
+        private final String key;
+        private final Decoder<T> decoder;
+        private final List<DataCallback<T>> callbacks = new ArrayList<>();
+        private volatile Call call;
+        private volatile boolean abandoned;
+
+        InFlight(String key, Decoder<T> decoder) {
+            this.key = key;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void onSuccess(T data) {
+            for (DataCallback<T> callback : finish()) {
+                callback.onSuccess(data);
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            for (DataCallback<T> callback : finish()) {
+                callback.onError(error);
+            }
+        }
+
+        /**
+         * Remove a subscriber whose scope ended; the last one out cancels the call
+         */
+        void unsubscribe(DataCallback<T> callback) {
+            Call toCancel;
+            synchronized (IN_FLIGHT) {
+                if (!callbacks.remove(callback) || !callbacks.isEmpty()) {
+                    return;
+                }
+                if (IN_FLIGHT.get(key) == this) {
+                    IN_FLIGHT.remove(key);
+                }
+                abandoned = true;
+                toCancel = call;
+            }
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+        }
+
+        /**
+         * Stop accepting joiners and return everyone who joined
+         */
+        private List<DataCallback<T>> finish() {
+            synchronized (IN_FLIGHT) {
+                if (IN_FLIGHT.get(key) == this) {
+                    IN_FLIGHT.remove(key);
+                }
+                return new ArrayList<>(callbacks);
+            }
+        }
+    }
+
+    /**
+     * OkHttp callback that streams the { success, message, data } envelope
+     * and decodes "data" without buffering the body or building a DOM
+     */
+    private static class DecodingCallback<T> implements Callback {
+        private final Decoder<T> decoder;
+        private final DataCallback<T> callback;
+
+        DecodingCallback(Decoder<T> decoder, DataCallback<T> callback) {
+            this.decoder = decoder;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            deliverError(connectionErrorMessage(e));
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            boolean success = false;
+            String message = null;
+            T data = null;
+            String endpoint = NetworkMetrics.endpointOf(call.request());
+            long parseStart = SystemClock.currentThreadTimeMillis();
+
+            try (ResponseBody body = response.body();
+                 Reader charStream = body.charStream();
+                 JsonReader reader = new JsonReader(charStream)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("success".equals(name)) {
+                        success = reader.nextBoolean();
+                    } else if ("message".equals(name)) {
+                        message = nextStringOrNull(reader);
+                    } else if ("data".equals(name) && reader.peek() != JsonToken.NULL) {
+                        data = decoder.decode(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                if (response.isSuccessful()) {
+                    NetworkMetrics.getInstance().recordError(endpoint, NetworkMetrics.ERROR_PARSE);
+                }
+                deliverError(response.isSuccessful()
+                        ? "Error parsing response"
+                        : "Server error: " + response.code());
+                return;
+            }
+
+            // Thread CPU time, so waiting on the network is not counted as parsing
+            NetworkMetrics.getInstance().recordParse(endpoint, SystemClock.currentThreadTimeMillis() - parseStart);
+
+            if (success && data != null) {
+                final T result = data;
+                MAIN_HANDLER.post(() -> callback.onSuccess(result));
+            } else {
+                deliverError(message != null ? message : "Server error: " + response.code());
+            }
+        }
+
+        private void deliverError(String error) {
+            MAIN_HANDLER.post(() -> callback.onError(error));
+        }
+    }
+}
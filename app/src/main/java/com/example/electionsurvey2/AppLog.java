@@ -0,0 +1,423 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * App Log
+ * Small leveled logger for the whole app.
+ *
+ * Callers only drop an entry into a lock-free ring buffer: no I/O, no lock
+ * and no string formatting on the calling thread. A background thread formats
+ * the entries and appends them to a rotating file in files/logs, so field
+ * logs survive restarts and can be shared from the Diagnostics screen.
+ * If logging outpaces the writer, the oldest entries are overwritten and
+ * the file records how many were dropped.
+ *
+ * Debug entries are only kept in debuggable builds; in release builds d()
+ * returns after one field read. Arguments are formatted later on the writer
+ * thread, so they must not be modified after the call.
+ */
+public final class AppLog {
+
+    // Levels, same values as android.util.Log
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+
+    // Ring buffer, capacity must be a power of two
+    private static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    // Files
+    private static final String LOG_DIR = "logs";
+    private static final String LOG_FILE = "app.log";
+    private static final long MAX_FILE_BYTES = 256 * 1024;
+    private static final int MAX_FILES = 3;
+
+    private static final long WRITE_INTERVAL_MS = 500;
+
+    private static final AtomicReferenceArray<Entry> ring = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong nextSequence = new AtomicLong();
+
+    // Set once by init(), until then everything from INFO up is kept
+    private static int minLevel = INFO;
+    private static boolean debuggable = false;
+    private static volatile Thread writerThread;
+
+    // Consumer side, guarded by WRITE_LOCK
+    private static final Object WRITE_LOCK = new Object();
+    private static volatile long readSequence = 0;
+    private static File logDir;
+    private static Writer out;
+    private static long fileBytes = 0;
+    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    private static final Date date = new Date();
+
+    /**
+     * One log call, immutable once published
+     */
+    private static final class Entry {
+        final long sequence;
+        final long time;
+        final int level;
+        final String thread;
+        final String tag;
+        final String format;
+        final Object arg1, arg2;
+        final int argCount;
+        final Throwable throwable;
+
+        Entry(long sequence, int level, String tag, String format,
+              int argCount, Object arg1, Object arg2, Throwable throwable) {
+            this.sequence = sequence;
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.thread = Thread.currentThread().getName();
+            this.tag = tag;
+            this.format = format;
+            this.argCount = argCount;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+            this.throwable = throwable;
+        }
+    }
+
+    private AppLog() {
+    }
+
+    /**
+     * Open the log files and start the writer, call once at process start
+     * @param context Application context
+     */
+    public static void init(Context context) {
+        debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        minLevel = debuggable ? DEBUG : INFO;
+
+        synchronized (WRITE_LOCK) {
+            logDir = new File(context.getFilesDir(), LOG_DIR);
+            logDir.mkdirs();
+        }
+
+        Thread writer = new Thread(AppLog::writerLoop, "app-log");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writerThread = writer;
+        writer.start();
+
+        // Last words of a crash are the most useful entries of all
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
+            e("Crash", "Uncaught exception in " + thread.getName(), throwable);
+            flush();
+            if (previous != null) {
+                previous.uncaughtException(thread, throwable);
+            }
+        });
+    }
+
+    /**
+     * @return true if entries of this level are kept, to guard expensive arguments
+     */
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG >= minLevel) {
+            publish(DEBUG, tag, message, 0, null, null, null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (DEBUG >= minLevel) {
+            publish(DEBUG, tag, format, 1, arg, null, null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (DEBUG >= minLevel) {
+            publish(DEBUG, tag, format, 2, arg1, arg2, null);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        publish(INFO, tag, message, 0, null, null, null);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        publish(INFO, tag, format, 1, arg, null, null);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        publish(INFO, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void w(String tag, String message) {
+        publish(WARN, tag, message, 0, null, null, null);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        publish(WARN, tag, format, 1, arg, null, null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        publish(WARN, tag, message, 0, null, null, throwable);
+    }
+
+    public static void e(String tag, String message) {
+        publish(ERROR, tag, message, 0, null, null, null);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        publish(ERROR, tag, format, 1, arg, null, null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        publish(ERROR, tag, message, 0, null, null, throwable);
+    }
+
+    /**
+     * Write everything logged so far to the file, blocking the caller
+     */
+    public static void flush() {
+        synchronized (WRITE_LOCK) {
+            drain();
+        }
+    }
+
+    /**
+     * Read back the most recent log text, oldest first, for support
+     * Does file I/O, call off the main thread.
+     * @param maxChars Upper bound on the returned text
+     * @return Log text, empty if nothing has been written
+     */
+    public static String readRecent(int maxChars) {
+        StringBuilder text = new StringBuilder();
+        synchronized (WRITE_LOCK) {
+            drain();
+            if (logDir == null) {
+                return "";
+            }
+            for (int i = MAX_FILES - 1; i >= 0; i--) {
+                File file = logFile(i);
+                if (!file.exists()) {
+                    continue;
+                }
+                try (FileInputStream in = new FileInputStream(file)) {
+                    byte[] data = new byte[(int) file.length()];
+                    int offset = 0;
+                    int read;
+                    while (offset < data.length && (read = in.read(data, offset, data.length - offset)) > 0) {
+                        offset += read;
+                    }
+                    text.append(new String(data, 0, offset, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    // Skip an unreadable file
+                }
+            }
+        }
+        return text.length() > maxChars ? text.substring(text.length() - maxChars) : text.toString();
+    }
+
+    /**
+     * Claim a slot and publish an entry, never blocks
+     */
+    private static void publish(int level, String tag, String format,
+                                int argCount, Object arg1, Object arg2, Throwable throwable) {
+        if (level < minLevel) {
+            return;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        ring.lazySet((int) (sequence & MASK), new Entry(sequence, level, tag, format, argCount, arg1, arg2, throwable));
+
+        // Errors are written promptly, and so is a ring that is filling up
+        Thread writer = writerThread;
+        if (writer != null && (level >= ERROR || sequence - readSequence > CAPACITY / 2)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static void writerLoop() {
+        while (true) {
+            LockSupport.parkNanos(WRITE_INTERVAL_MS * 1_000_000L);
+            synchronized (WRITE_LOCK) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Write all published entries, must hold WRITE_LOCK
+     */
+    private static void drain() {
+        long published = nextSequence.get();
+        long read = readSequence;
+        long dropped = 0;
+        boolean wrote = false;
+
+        while (read < published) {
+            Entry entry = ring.get((int) (read & MASK));
+            if (entry == null || entry.sequence < read) {
+                // Slot claimed but not stored yet, pick it up next time
+                break;
+            }
+            if (entry.sequence > read) {
+                // Overwritten before it was written out
+                long next = Math.max(read + 1, published - CAPACITY);
+                dropped += next - read;
+                read = next;
+                continue;
+            }
+
+            if (dropped > 0) {
+                writeLine(WARN, System.currentTimeMillis(), "app-log", "AppLog", dropped + " entries dropped", null);
+                dropped = 0;
+            }
+            try {
+                writeLine(entry.level, entry.time, entry.thread, entry.tag, format(entry), entry.throwable);
+            } catch (RuntimeException e) {
+                // An argument's toString() threw; one bad entry must not stop the writer
+                writeLine(entry.level, entry.time, entry.thread, entry.tag,
+                        entry.format + " [not printable: " + e.getClass().getName() + "]", null);
+            }
+            wrote = true;
+            read++;
+        }
+        readSequence = read;
+
+        if (wrote && out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                closeFile();
+            }
+        }
+    }
+
+    private static String format(Entry entry) {
+        if (entry.argCount == 0 || entry.format == null) {
+            return String.valueOf(entry.format);
+        }
+        Object[] args = entry.argCount == 1 ? new Object[]{entry.arg1} : new Object[]{entry.arg1, entry.arg2};
+        try {
+            return String.format(Locale.US, entry.format, args);
+        } catch (IllegalFormatException e) {
+            StringBuilder text = new StringBuilder(entry.format);
+            for (Object arg : args) {
+                text.append(' ').append(arg);
+            }
+            return text.toString();
+        }
+    }
+
+    private static void writeLine(int level, long time, String thread, String tag, String message, Throwable throwable) {
+        if (debuggable) {
+            Log.println(level, tag, throwable != null ? message + '\n' + Log.getStackTraceString(throwable) : message);
+        }
+
+        date.setTime(time);
+        StringBuilder line = new StringBuilder(64 + message.length());
+        line.append(TIME_FORMAT.format(date))
+                .append(' ').append(levelName(level))
+                .append(' ').append(tag)
+                .append(" [").append(thread).append("] ")
+                .append(message)
+                .append('\n');
+        if (throwable != null) {
+            StringWriter trace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+
+        Writer writer = openFile();
+        if (writer == null) {
+            return;
+        }
+        try {
+            String text = line.toString();
+            writer.write(text);
+            // Characters, close enough to bytes for a size cap
+            fileBytes += text.length();
+            if (fileBytes >= MAX_FILE_BYTES) {
+                rotate();
+            }
+        } catch (IOException e) {
+            closeFile();
+        }
+    }
+
+    private static char levelName(int level) {
+        switch (level) {
+            case DEBUG:
+                return 'D';
+            case INFO:
+                return 'I';
+            case WARN:
+                return 'W';
+            default:
+                return 'E';
+        }
+    }
+
+    /**
+     * @return Writer for the current file, or null before init() or on I/O failure
+     */
+    private static Writer openFile() {
+        if (out == null && logDir != null) {
+            try {
+                File file = logFile(0);
+                fileBytes = file.length();
+                out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                out = null;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * app.log becomes app.1.log and so on; the oldest file is deleted
+     */
+    private static void rotate() {
+        closeFile();
+        logFile(MAX_FILES - 1).delete();
+        for (int i = MAX_FILES - 2; i >= 0; i--) {
+            logFile(i).renameTo(logFile(i + 1));
+        }
+    }
+
+    private static void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+            out = null;
+        }
+    }
+
+    private static File logFile(int index) {
+        return new File(logDir, index == 0 ? LOG_FILE : "app." + index + ".log");
+    }
+}
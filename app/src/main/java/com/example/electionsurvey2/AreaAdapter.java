@@ -1,24 +1,92 @@
 package com.example.electionsurvey2;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * RecyclerView Adapter for Areas
  * Displays list of areas with click handling
+ * Updates are diffed on a background thread and only changed rows are
+ * rebound; ids are stable so scroll position survives a refresh.
+ * filter() narrows the rows to a type-ahead search without copying the list.
+ * The search index is built on the differ's background thread and swapped
+ * in together with the diffed list.
  */
 public class AreaAdapter extends RecyclerView.Adapter<AreaAdapter.AreaViewHolder> {
 
-    private List<Area> areaList;
+    private static final DiffUtil.ItemCallback<Area> DIFF_CALLBACK = new DiffUtil.ItemCallback<Area>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Area oldItem, @NonNull Area newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Area oldItem, @NonNull Area newItem) {
+            // The name is the only thing a row shows
+            String oldName = oldItem.getAreaName();
+            return oldName != null ? oldName.equals(newItem.getAreaName()) : newItem.getAreaName() == null;
+        }
+    };
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final AsyncDifferConfig<Area> differConfig = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build();
+    private final AsyncListDiffer<Area> differ = new AsyncListDiffer<>(new ListUpdateCallback() {
+        // Diffs describe the full list; while filtering the rows are refreshed by filter() instead
+        @Override
+        public void onInserted(int position, int count) {
+            if (!isFiltering()) {
+                notifyItemRangeInserted(position, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (!isFiltering()) {
+                notifyItemRangeRemoved(position, count);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            if (!isFiltering()) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            if (!isFiltering()) {
+                notifyItemRangeChanged(position, count, payload);
+            }
+        }
+    }, differConfig);
     private OnItemClickListener listener;
 
+    // Search over the current list, replaced when a submitted list is committed
+    private List<Area> indexedAreas = Collections.emptyList();
+    private SearchIndex searchIndex = new SearchIndex(Collections.emptyList());
+    private CharSequence query;
+    private int[] matches = new int[0];
+    private int matchCount = 0;
+    // Latest updateAreas() call, older index builds are dropped
+    private int generation = 0;
+
     /**
      * Interface for item click events
      */
@@ -32,8 +100,9 @@ public class AreaAdapter extends RecyclerView.Adapter<AreaAdapter.AreaViewHolder
      * @param listener Click listener
      */
     public AreaAdapter(List<Area> areaList, OnItemClickListener listener) {
-        this.areaList = areaList;
         this.listener = listener;
+        setHasStableIds(true);
+        updateAreas(areaList);
     }
 
     @NonNull
@@ -46,13 +115,26 @@ public class AreaAdapter extends RecyclerView.Adapter<AreaAdapter.AreaViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull AreaViewHolder holder, int position) {
-        Area area = areaList.get(position);
+        Area area = getItem(position);
         holder.bind(area, listener);
     }
 
     @Override
     public int getItemCount() {
-        return areaList != null ? areaList.size() : 0;
+        return isFiltering() ? matchCount : differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    private Area getItem(int position) {
+        return isFiltering() ? indexedAreas.get(matches[position]) : differ.getCurrentList().get(position);
+    }
+
+    private boolean isFiltering() {
+        return query != null;
     }
 
     /**
@@ -85,15 +167,53 @@ public class AreaAdapter extends RecyclerView.Adapter<AreaAdapter.AreaViewHolder
 
     /**
      * Update the list of areas
+     * The list is copied, so the caller may keep reusing its own.
      * @param newAreas New list of areas
      */
     public void updateAreas(List<Area> newAreas) {
-        this.areaList = newAreas;
+        List<Area> copy = newAreas != null ? new ArrayList<>(newAreas) : Collections.emptyList();
+        int submitted = ++generation;
+
+        // Index once per list, off the main thread; keystrokes only search it
+        differConfig.getBackgroundThreadExecutor().execute(() -> {
+            List<String> names = new ArrayList<>(copy.size());
+            for (Area area : copy) {
+                names.add(area.getAreaName() != null ? area.getAreaName() : "");
+            }
+            SearchIndex index = new SearchIndex(names);
+
+            MAIN_HANDLER.post(() -> {
+                if (submitted != generation) {
+                    return;
+                }
+                differ.submitList(copy, () -> {
+                    indexedAreas = copy;
+                    searchIndex = index;
+                    matches = new int[copy.size()];
+                    if (isFiltering()) {
+                        filter(query);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Show only the areas matching a search
+     * Runs on every keystroke and allocates nothing.
+     * @param text Search text, kept and re-applied when the list changes; null or empty shows all areas
+     */
+    public void filter(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            if (isFiltering()) {
+                query = null;
+                notifyDataSetChanged();
+            }
+            return;
+        }
+        query = text;
+        matchCount = searchIndex.search(text, matches);
+        // Stable ids let RecyclerView keep the rows that are still shown
         notifyDataSetChanged();
     }
 }
-
-
-
-
-
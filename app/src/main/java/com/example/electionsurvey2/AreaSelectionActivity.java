@@ -1,10 +1,12 @@
 package com.example.electionsurvey2;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
@@ -22,18 +24,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.navigation.NavigationView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
-
 /**
  * Area Selection Activity
  * Displays list of areas from API and allows user to select one
@@ -46,6 +39,7 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
     private Toolbar toolbar;
     private ProgressBar progressBar;
     private RecyclerView recyclerViewAreas;
+    private EditText etSearch;
     private LinearLayout emptyState;
     private TextView tvUserEmail;
 
@@ -53,11 +47,8 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
     private List<Area> areaList;
     private AreaAdapter areaAdapter;
 
-    // SharedPreferences
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-    private static final String KEY_USER_NAME = "user_name";
-    private static final String KEY_AREA_ID = "area_id";
-    private static final String KEY_AREA_NAME = "area_name";
+    // Requests whose results are only shown on this screen
+    private final RequestScope requestScope = new RequestScope("AreaSelectionActivity");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,6 +65,9 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
         // Setup RecyclerView
         setupRecyclerView();
 
+        // Setup type-ahead search
+        setupSearch();
+
         // Update user info in drawer header
         updateUserInfo();
 
@@ -90,6 +84,7 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
         toolbar = findViewById(R.id.toolbar);
         progressBar = findViewById(R.id.progressBar);
         recyclerViewAreas = findViewById(R.id.recyclerViewAreas);
+        etSearch = findViewById(R.id.etSearch);
         emptyState = findViewById(R.id.emptyState);
         tvUserEmail = navigationView.getHeaderView(0).findViewById(R.id.tvUserEmail);
 
@@ -129,9 +124,7 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
      * Update user information in drawer header
      */
     private void updateUserInfo() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        String userName = prefs.getString(KEY_USER_NAME, "User");
-        tvUserEmail.setText(userName);
+        tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
     }
 
     /**
@@ -143,6 +136,26 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
         recyclerViewAreas.setLayoutManager(new LinearLayoutManager(this));
     }
 
+    /**
+     * Filter the list as the user types, entirely on the loaded areas
+     */
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                areaAdapter.filter(s);
+            }
+        });
+    }
+
     /**
      * Load areas from API
      */
@@ -150,74 +163,35 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
         // Show loading
         showLoading(true);
 
-        // Make API request
-        ApiService.get(ApiService.AREAS, new Callback() {
+        // Served from the shared repository, usually already prefetched at login;
+        // background refreshes are delivered here again while the screen is open
+        SurveyRepository.getInstance().observeAreas(requestScope, new ApiService.DataCallback<List<Area>>() {
             @Override
-            public void onFailure(Call call, IOException e) {
-                // Network error
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    Toast.makeText(AreaSelectionActivity.this,
-                            "Unable to connect to server",
-                            Toast.LENGTH_LONG).show();
-                    showEmptyState(true);
-                });
+            public void onSuccess(List<Area> areas) {
+                showLoading(false);
+                handleAreasResponse(areas);
             }
 
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                final String responseBody = response.body().string();
-
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    handleAreasResponse(responseBody);
-                });
+            public void onError(String error) {
+                showLoading(false);
+                Toast.makeText(AreaSelectionActivity.this, error, Toast.LENGTH_LONG).show();
+                showEmptyState(true);
             }
         });
     }
 
     /**
-     * Handle API response
-     * @param responseBody JSON response from server
+     * Handle decoded areas from API
+     * @param areas Areas returned by the server
      */
-    private void handleAreasResponse(String responseBody) {
-        try {
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            boolean success = jsonResponse.getBoolean("success");
-
-            if (success) {
-                // Parse areas array
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                areaList.clear();
-
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject areaJson = dataArray.getJSONObject(i);
-                    int id = areaJson.getInt("id");
-                    String areaName = areaJson.getString("area_name");
-
-                    Area area = new Area(id, areaName);
-                    areaList.add(area);
-                }
-
-                // Update RecyclerView
-                if (areaList.isEmpty()) {
-                    showEmptyState(true);
-                } else {
-                    showEmptyState(false);
-                    areaAdapter.updateAreas(areaList);
-                }
-
-            } else {
-                // API returned success: false
-                String message = jsonResponse.optString("message", "Failed to load areas");
-                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
-                showEmptyState(true);
-            }
+    private void handleAreasResponse(List<Area> areas) {
+        areaList.clear();
+        areaList.addAll(areas);
 
-        } catch (JSONException e) {
-            Toast.makeText(this, "Error parsing response", Toast.LENGTH_SHORT).show();
-            showEmptyState(true);
-        }
+        // Called again for every background refresh: the adapter diffs it and rebinds only changed rows
+        areaAdapter.updateAreas(areaList);
+        showEmptyState(areaList.isEmpty());
     }
 
     /**
@@ -226,12 +200,8 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
      */
     @Override
     public void onItemClick(Area area) {
-        // Save selected area to SharedPreferences
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(KEY_AREA_ID, area.getId());
-        editor.putString(KEY_AREA_NAME, area.getAreaName());
-        editor.apply();
+        // Remember the selected area
+        SessionStore.getInstance().selectArea(area);
 
         // Navigate to Ward Selection Activity
         Intent intent = new Intent(AreaSelectionActivity.this, WardSelectionActivity.class);
@@ -240,6 +210,13 @@ public class AreaSelectionActivity extends AppCompatActivity implements AreaAdap
         startActivity(intent);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop callbacks to this screen and cancel requests only it was waiting for
+        requestScope.cancel();
+    }
+
     /**
      * Show/hide loading state
      * @param isLoading Loading state
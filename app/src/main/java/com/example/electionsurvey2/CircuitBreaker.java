@@ -0,0 +1,132 @@
+package com.example.electionsurvey2;
+
+import android.os.SystemClock;
+
+import java.io.IOException;
+
+/**
+ * Circuit Breaker
+ * Stops the app from hammering an overloaded server.
+ * After several consecutive failures (network errors, 5xx, 429) the circuit
+ * opens and requests fail fast without touching the network. Once the
+ * cooldown, or the server's Retry-After, has passed a single probe request
+ * is let through; its outcome closes the circuit or opens it again for longer.
+ */
+public class CircuitBreaker {
+
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long MIN_OPEN_MS = 5000;
+    private static final long MAX_OPEN_MS = 2 * 60 * 1000;
+
+    /**
+     * Thrown instead of making a request while the circuit is open
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMs;
+
+        CircuitOpenException(long retryAfterMs) {
+            super("Circuit open, retry in " + retryAfterMs + " ms");
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
+
+    /**
+     * Monotonic time source in milliseconds
+     */
+    interface Clock {
+        long now();
+    }
+
+    private final Clock clock;
+    private int consecutiveFailures = 0;
+    private long openDurationMs = MIN_OPEN_MS;
+    private long openUntil = 0;
+    private boolean probeInFlight = false;
+
+    public CircuitBreaker() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * Constructor
+     * @param clock Time source, replaced by a manual clock in tests
+     */
+    CircuitBreaker(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Ask permission to send a request
+     * @throws CircuitOpenException if the request must fail fast
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        if (consecutiveFailures < FAILURE_THRESHOLD) {
+            return;
+        }
+
+        long remaining = openUntil - clock.now();
+        if (remaining > 0) {
+            throw new CircuitOpenException(remaining);
+        }
+
+        // Half-open: exactly one probe at a time
+        if (probeInFlight) {
+            throw new CircuitOpenException(MIN_OPEN_MS);
+        }
+        probeInFlight = true;
+    }
+
+    /**
+     * Record a healthy response
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        openDurationMs = MIN_OPEN_MS;
+        probeInFlight = false;
+    }
+
+    /**
+     * Record a request that ended without an outcome, e.g. cancelled by its caller
+     * Neither a success nor a failure; a half-open probe is simply handed back.
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Record a failed request
+     * @param retryAfterMs Server-requested wait, or 0 if none was given
+     */
+    public synchronized void onFailure(long retryAfterMs) {
+        boolean wasProbe = probeInFlight;
+        probeInFlight = false;
+        consecutiveFailures++;
+
+        if (consecutiveFailures >= FAILURE_THRESHOLD || retryAfterMs > 0) {
+            // A failed probe doubles the cooldown
+            if (wasProbe) {
+                openDurationMs = Math.min(openDurationMs * 2, MAX_OPEN_MS);
+            }
+            consecutiveFailures = Math.max(consecutiveFailures, FAILURE_THRESHOLD);
+            long duration = Math.min(Math.max(openDurationMs, retryAfterMs), MAX_OPEN_MS);
+            openUntil = Math.max(openUntil, clock.now() + duration);
+        }
+    }
+
+    /**
+     * How long callers should wait before the circuit lets requests through
+     * @return Milliseconds, 0 if requests are allowed now
+     */
+    public synchronized long getRetryAfterMs() {
+        if (consecutiveFailures < FAILURE_THRESHOLD) {
+            return 0;
+        }
+        return Math.max(0, openUntil - clock.now());
+    }
+}
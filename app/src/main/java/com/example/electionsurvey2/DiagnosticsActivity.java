@@ -0,0 +1,201 @@
+package com.example.electionsurvey2;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.google.android.material.button.MaterialButton;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Diagnostics Activity
+ * Shows per-endpoint network statistics so field teams can tell whether
+ * slowness comes from the network, the server or parsing on the device.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    // Binder transactions share a 1 MB buffer per process and text is parceled
+    // as UTF-16, so about 128 KB here stays clear of TransactionTooLargeException
+    private static final int MAX_SHARED_LOG_CHARS = 64 * 1024;
+
+    private TextView tvReport;
+    private MaterialButton btnRefresh, btnReset, btnShareLogs;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        // Initialize views
+        initializeViews();
+
+        // Setup toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        // Setup buttons
+        btnRefresh.setOnClickListener(v -> showReport());
+        btnReset.setOnClickListener(v -> {
+            NetworkMetrics.getInstance().reset();
+            showReport();
+        });
+        btnShareLogs.setOnClickListener(v -> shareLogs());
+
+        showReport();
+    }
+
+    /**
+     * Initialize all views
+     */
+    private void initializeViews() {
+        tvReport = findViewById(R.id.tvReport);
+        btnRefresh = findViewById(R.id.btnRefresh);
+        btnReset = findViewById(R.id.btnReset);
+        btnShareLogs = findViewById(R.id.btnShareLogs);
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    /**
+     * Send the recent app log to support through any sharing app
+     */
+    private void shareLogs() {
+        btnShareLogs.setEnabled(false);
+        new Thread(() -> {
+            String logs = AppLog.readRecent(MAX_SHARED_LOG_CHARS);
+            runOnUiThread(() -> {
+                btnShareLogs.setEnabled(true);
+                if (logs.isEmpty()) {
+                    tvReport.setText("No log entries recorded yet");
+                    return;
+                }
+                Intent intent = new Intent(Intent.ACTION_SEND);
+                intent.setType("text/plain");
+                intent.putExtra(Intent.EXTRA_SUBJECT, "Election Survey logs");
+                intent.putExtra(Intent.EXTRA_TEXT, logs);
+                startActivity(Intent.createChooser(intent, "Share logs"));
+            });
+        }, "log-export").start();
+    }
+
+    /**
+     * Render the current statistics
+     */
+    private void showReport() {
+        List<NetworkMetrics.EndpointStats> snapshot = NetworkMetrics.getInstance().getSnapshot();
+        List<NetworkMetrics.ScopeStats> scopes = NetworkMetrics.getInstance().getScopeSnapshot();
+        if (snapshot.isEmpty() && scopes.isEmpty()) {
+            tvReport.setText("No network activity recorded yet");
+            return;
+        }
+
+        // A request in flight is counted under its screen before its endpoint has any stats
+        StringBuilder report = new StringBuilder();
+        for (NetworkMetrics.EndpointStats stats : snapshot) {
+            appendEndpoint(report, stats);
+        }
+        appendScopes(report, scopes);
+        tvReport.setText(report);
+    }
+
+    /**
+     * Requests per screen: how many are running now and how many were cut short
+     */
+    private void appendScopes(StringBuilder report, List<NetworkMetrics.ScopeStats> scopes) {
+        if (scopes.isEmpty()) {
+            return;
+        }
+        report.append("Requests by screen\n");
+        report.append(String.format(Locale.US, "  %-24s %6s %6s %8s %9s%n",
+                "scope", "now", "peak", "started", "cancelled"));
+        for (NetworkMetrics.ScopeStats stats : scopes) {
+            report.append(String.format(Locale.US, "  %-24s %6d %6d %8d %9d%n",
+                    stats.getScope(), stats.getInFlight(), stats.getPeakInFlight(),
+                    stats.getStarted(), stats.getCancelled()));
+        }
+    }
+
+    private void appendEndpoint(StringBuilder report, NetworkMetrics.EndpointStats stats) {
+        report.append(stats.getEndpoint()).append('\n');
+        report.append(String.format(Locale.US, "  calls %d  sent %s  received %s%n",
+                stats.getCalls(), formatBytes(stats.getBytesSent()), formatBytes(stats.getBytesReceived())));
+
+        report.append(String.format(Locale.US, "  %-9s %6s %6s %6s%n", "phase", "p50", "p90", "n"));
+        for (int phase = 0; phase < NetworkMetrics.PHASE_COUNT; phase++) {
+            LatencyHistogram histogram = stats.getPhase(phase);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.US, "  %-9s %6s %6s %6d%n",
+                    NetworkMetrics.PHASE_NAMES[phase],
+                    formatMs(histogram.getPercentileMs(0.5)),
+                    formatMs(histogram.getPercentileMs(0.9)),
+                    histogram.getCount()));
+        }
+
+        StringBuilder errors = new StringBuilder();
+        for (int error = 0; error < NetworkMetrics.ERROR_COUNT; error++) {
+            long count = stats.getErrorCount(error);
+            if (count > 0) {
+                errors.append(' ').append(NetworkMetrics.ERROR_NAMES[error]).append('=').append(count);
+            }
+        }
+        if (errors.length() > 0) {
+            report.append("  errors").append(errors).append('\n');
+        }
+
+        report.append("  slowest: ").append(bottleneck(stats)).append("\n\n");
+    }
+
+    /**
+     * Compare mean time spent on the network, waiting for the server and parsing
+     */
+    private String bottleneck(NetworkMetrics.EndpointStats stats) {
+        long network = stats.getPhase(NetworkMetrics.PHASE_DNS).getMeanMs()
+                + stats.getPhase(NetworkMetrics.PHASE_CONNECT).getMeanMs()
+                + stats.getPhase(NetworkMetrics.PHASE_TLS).getMeanMs()
+                + stats.getPhase(NetworkMetrics.PHASE_TRANSFER).getMeanMs();
+        long server = stats.getPhase(NetworkMetrics.PHASE_TTFB).getMeanMs();
+        long parse = stats.getPhase(NetworkMetrics.PHASE_PARSE).getMeanMs();
+
+        if (network == 0 && server == 0 && parse == 0) {
+            return "not enough data";
+        }
+        if (server >= network && server >= parse) {
+            return "server (" + server + " ms)";
+        }
+        if (network >= parse) {
+            return "network (" + network + " ms)";
+        }
+        return "parsing on device (" + parse + " ms)";
+    }
+
+    private static String formatMs(long ms) {
+        if (ms < 0) {
+            return "-";
+        }
+        return ms < 1000 ? ms + "ms" : String.format(Locale.US, "%.1fs", ms / 1000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.electionsurvey2;
+
+import android.text.InputFilter;
+import android.text.InputType;
+import android.text.Spanned;
+import android.util.Patterns;
+
+import java.util.Locale;
+
+/**
+ * Input Spec
+ * Precompiled rendering and validation rules for one question.
+ * Compiled once when a Question is built, so showing or saving a question
+ * is a field lookup instead of repeated keyword scans. Specs and their
+ * filters are immutable and shared between all questions of the same kind.
+ */
+public final class InputSpec {
+
+    // Kinds
+    public static final int KIND_TEXT = 0;
+    public static final int KIND_NAME = 1;
+    public static final int KIND_AGE = 2;
+    public static final int KIND_PHONE = 3;
+    public static final int KIND_EMAIL = 4;
+    public static final int KIND_NUMBER = 5;
+    public static final int KIND_SINGLE = 6;
+    public static final int KIND_MULTIPLE = 7;
+
+    private static final int PHONE_LENGTH = 10;
+
+    /**
+     * Checks a trimmed, non-empty text answer
+     */
+    public interface Validator {
+        /**
+         * @return Error message to show, or null if the answer is acceptable
+         */
+        String validate(String text);
+    }
+
+    // Shared, stateless filters
+    private static final InputFilter LETTERS_AND_SPACES = new InputFilter() {
+        @Override
+        public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+            for (int i = start; i < end; i++) {
+                char c = source.charAt(i);
+                // Allow alphabets and spaces
+                if (!Character.isLetter(c) && c != ' ') {
+                    return "";
+                }
+            }
+            return null; // Accept the input
+        }
+    };
+
+    private static final InputFilter DIGITS = new InputFilter() {
+        @Override
+        public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+            for (int i = start; i < end; i++) {
+                // Allow only digits (0-9)
+                if (!Character.isDigit(source.charAt(i))) {
+                    return "";
+                }
+            }
+            return null; // Accept the input
+        }
+    };
+
+    private static final InputFilter[] NO_FILTERS = new InputFilter[0];
+
+    private static final Validator ANY_TEXT = text -> null;
+
+    private static final Validator PHONE_VALIDATOR = text -> {
+        if (text.length() != PHONE_LENGTH) {
+            return "Mobile number must be exactly 10 digits";
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return "Mobile number must contain only digits";
+            }
+        }
+        return null;
+    };
+
+    private static final Validator EMAIL_VALIDATOR = text ->
+            Patterns.EMAIL_ADDRESS.matcher(text).matches() ? null : "Please enter a valid email address";
+
+    // One spec per kind
+    public static final InputSpec TEXT = new InputSpec(KIND_TEXT,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_SENTENCES,
+            "Enter your answer here", NO_FILTERS, ANY_TEXT);
+
+    public static final InputSpec NAME = new InputSpec(KIND_NAME,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_WORDS,
+            "Enter your name", new InputFilter[]{LETTERS_AND_SPACES}, ANY_TEXT);
+
+    public static final InputSpec AGE = new InputSpec(KIND_AGE,
+            InputType.TYPE_CLASS_NUMBER,
+            "Enter your age", new InputFilter[]{DIGITS}, ANY_TEXT);
+
+    public static final InputSpec PHONE = new InputSpec(KIND_PHONE,
+            InputType.TYPE_CLASS_PHONE,
+            "Enter mobile number (10 digits)",
+            new InputFilter[]{new InputFilter.LengthFilter(PHONE_LENGTH), DIGITS}, PHONE_VALIDATOR);
+
+    public static final InputSpec EMAIL = new InputSpec(KIND_EMAIL,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_EMAIL_ADDRESS,
+            "Enter email address", NO_FILTERS, EMAIL_VALIDATOR);
+
+    public static final InputSpec NUMBER = new InputSpec(KIND_NUMBER,
+            InputType.TYPE_CLASS_NUMBER,
+            "Enter a number", new InputFilter[]{DIGITS}, ANY_TEXT);
+
+    public static final InputSpec SINGLE = new InputSpec(KIND_SINGLE, 0, null, NO_FILTERS, ANY_TEXT);
+
+    public static final InputSpec MULTIPLE = new InputSpec(KIND_MULTIPLE, 0, null, NO_FILTERS, ANY_TEXT);
+
+    private final int kind;
+    private final int inputType;
+    private final String hint;
+    private final InputFilter[] filters;
+    private final Validator validator;
+
+    private InputSpec(int kind, int inputType, String hint, InputFilter[] filters, Validator validator) {
+        this.kind = kind;
+        this.inputType = inputType;
+        this.hint = hint;
+        this.filters = filters;
+        this.validator = validator;
+    }
+
+    /**
+     * Compile the rules for a question
+     * An explicit server field type wins; without one the question text is
+     * checked for the same keywords the app has always used.
+     * @param type Question type: "text", "single" or "multiple"
+     * @param fieldType Server field type, may be null
+     * @param questionText Question text
+     * @return Shared spec for the question's kind
+     */
+    public static InputSpec compile(String type, String fieldType, String questionText) {
+        if ("single".equals(type)) {
+            return SINGLE;
+        }
+        if ("multiple".equals(type)) {
+            return MULTIPLE;
+        }
+
+        if (fieldType != null) {
+            switch (fieldType) {
+                case "name":
+                    return NAME;
+                case "age":
+                    return AGE;
+                case "phone":
+                    return PHONE;
+                case "email":
+                    return EMAIL;
+                case "number":
+                    return NUMBER;
+                case "text":
+                    return TEXT;
+                default:
+                    // Unknown to this version of the app, fall back to keywords
+            }
+        }
+
+        String text = questionText.toLowerCase(Locale.ROOT);
+        if (text.contains("name")) {
+            return NAME;
+        }
+        if (text.contains("age")) {
+            return AGE;
+        }
+        if (text.contains("mobile") || text.contains("phone") || text.contains("contact")) {
+            return PHONE;
+        }
+        return TEXT;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * @return InputType flags for the text field
+     */
+    public int getInputType() {
+        return inputType;
+    }
+
+    public String getHint() {
+        return hint;
+    }
+
+    /**
+     * @return Shared filters, must not be modified
+     */
+    public InputFilter[] getFilters() {
+        return filters;
+    }
+
+    /**
+     * Validate a trimmed, non-empty text answer
+     * @return Error message, or null if valid
+     */
+    public String validate(String text) {
+        return validator.validate(text);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.electionsurvey2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Latency Histogram
+ * Fixed-memory histogram with power-of-two millisecond buckets.
+ * Bucket 0 holds samples under 1 ms, bucket i holds [2^(i-1), 2^i) ms and
+ * the last bucket holds everything from 2^14 ms (about 16 s) upward.
+ * Not thread-safe, NetworkMetrics guards all access.
+ */
+public class LatencyHistogram {
+
+    public static final int BUCKET_COUNT = 16;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long totalMs;
+
+    /**
+     * Add one sample
+     * @param ms Duration in milliseconds
+     */
+    public void record(long ms) {
+        buckets[bucketFor(ms)]++;
+        count++;
+        totalMs += Math.max(0, ms);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Mean in milliseconds, 0 if empty
+     */
+    public long getMeanMs() {
+        return count == 0 ? 0 : totalMs / count;
+    }
+
+    /**
+     * Approximate percentile, reported as the upper bound of its bucket
+     * @param fraction Percentile as a fraction, e.g. 0.9
+     * @return Milliseconds, or -1 if the histogram is empty
+     */
+    public long getPercentileMs(double fraction) {
+        if (count == 0) {
+            return -1;
+        }
+        long target = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Merge another histogram's samples into this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        totalMs += other.totalMs;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        Varints.write(out, totalMs);
+        for (long bucket : buckets) {
+            Varints.write(out, bucket);
+        }
+    }
+
+    void readFrom(InputStream in) throws IOException {
+        totalMs = Varints.read(in);
+        count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = Varints.read(in);
+            count += buckets[i];
+        }
+    }
+
+    static int bucketFor(long ms) {
+        if (ms < 1) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(ms), BUCKET_COUNT - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return 1L << Math.min(bucket, BUCKET_COUNT - 2);
+    }
+}
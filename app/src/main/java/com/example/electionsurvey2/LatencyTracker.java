@@ -0,0 +1,59 @@
+package com.example.electionsurvey2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latency Tracker
+ * Learns how long each endpoint usually takes and derives a read timeout
+ * from it, in the style of TCP's retransmission timer:
+ * timeout = smoothed latency + 4 x latency variation, clamped to a sane range.
+ * Fast links stop waiting 30 seconds for a stalled response, slow links
+ * are not cut off while data is still arriving.
+ */
+public class LatencyTracker {
+
+    private static final long MIN_TIMEOUT_MS = 5000;
+    private static final long MAX_TIMEOUT_MS = 30000;
+
+    private final Map<String, Estimate> estimates = new HashMap<>();
+
+    /**
+     * Record an observed latency
+     * @param endpoint Normalized endpoint key
+     * @param latencyMs Time from request sent to response headers received
+     */
+    public synchronized void record(String endpoint, long latencyMs) {
+        Estimate estimate = estimates.get(endpoint);
+        if (estimate == null) {
+            estimate = new Estimate();
+            estimate.smoothedMs = latencyMs;
+            estimate.variationMs = latencyMs / 2.0;
+            estimates.put(endpoint, estimate);
+            return;
+        }
+
+        double error = latencyMs - estimate.smoothedMs;
+        estimate.smoothedMs += error / 8;
+        estimate.variationMs += (Math.abs(error) - estimate.variationMs) / 4;
+    }
+
+    /**
+     * Read timeout to use for the next request to an endpoint
+     * @param endpoint Normalized endpoint key
+     * @return Timeout in milliseconds
+     */
+    public synchronized long timeoutFor(String endpoint) {
+        Estimate estimate = estimates.get(endpoint);
+        if (estimate == null) {
+            return MAX_TIMEOUT_MS;
+        }
+        long timeout = (long) (estimate.smoothedMs + 4 * estimate.variationMs);
+        return Math.max(MIN_TIMEOUT_MS, Math.min(timeout, MAX_TIMEOUT_MS));
+    }
+
+    private static class Estimate {
+        double smoothedMs;
+        double variationMs;
+    }
+}
@@ -1,13 +1,11 @@
 package com.example.electionsurvey2;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
@@ -17,50 +15,28 @@ import com.google.android.material.textfield.TextInputEditText;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
-
 /**
  * Login Activity - Handles user authentication
  * Validates phone and password, calls backend API, and saves user session
  */
 public class LoginActivity extends AppCompatActivity {
 
+    private static final String TAG = "LoginActivity";
+
     // UI Components
     private TextInputEditText etPhone, etPassword;
     private MaterialButton btnLogin;
     private ProgressBar progressBar;
     private TextView tvError;
 
-    // Network
-    private OkHttpClient client;
-
-    // API Configuration
-    private static final String BASE_URL = "http://143.110.252.32:4000"; // Remote server IP
-    private static final String LOGIN_ENDPOINT = "/api/login";
-
-    // SharedPreferences
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-    private static final String KEY_USER_ID = "user_id";
-    private static final String KEY_USER_NAME = "user_name";
-    private static final String KEY_USER_PHONE = "user_phone";
-    private static final String KEY_IS_LOGGED_IN = "is_logged_in";
+    // Cancels the login request if the screen is closed
+    private final RequestScope requestScope = new RequestScope(TAG);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
-        // Initialize OkHttp client
-        client = new OkHttpClient();
-
         // Auto-login disabled - user must login every time
         // if (isUserLoggedIn()) {
         //     navigateToAreaSelection();
@@ -72,6 +48,14 @@ public class LoginActivity extends AppCompatActivity {
 
         // Set login button click listener
         btnLogin.setOnClickListener(v -> handleLogin());
+
+        // Open the connection to the server while the form is being filled in
+        ApiService.prewarm();
+        etPassword.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus) {
+                ApiService.prewarm();
+            }
+        });
     }
 
     /**
@@ -129,40 +113,19 @@ public class LoginActivity extends AppCompatActivity {
             jsonBody.put("phone", phone);
             jsonBody.put("password", password);
 
-            // Create request body
-            MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-            RequestBody body = RequestBody.create(jsonBody.toString(), JSON);
-
-            // Build request
-            Request request = new Request.Builder()
-                    .url(BASE_URL + LOGIN_ENDPOINT)
-                    .post(body)
-                    .build();
-
-            // Execute async request
-            System.out.println("Attempting to connect to: " + BASE_URL + LOGIN_ENDPOINT);
-            client.newCall(request).enqueue(new Callback() {
+            // Execute async request, the response is decoded off the main thread
+            AppLog.d(TAG, "Attempting to connect to: %s%s", ApiService.BASE_URL, ApiService.LOGIN);
+            ApiService.postData(ApiService.LOGIN, jsonBody, ApiDecoders.USER, requestScope, new ApiService.DataCallback<User>() {
                 @Override
-                public void onFailure(Call call, IOException e) {
-                    // Network error
-                    System.err.println("Login API failure: " + e.getMessage());
-                    e.printStackTrace();
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        Toast.makeText(LoginActivity.this, 
-                            "Unable to connect to server: " + e.getMessage(), 
-                            Toast.LENGTH_LONG).show();
-                    });
+                public void onSuccess(User user) {
+                    showLoading(false);
+                    handleLoginResponse(user);
                 }
 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    final String responseBody = response.body().string();
-                    
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        handleLoginResponse(responseBody);
-                    });
+                public void onError(String error) {
+                    showLoading(false);
+                    showError(error);
                 }
             });
 
@@ -173,57 +136,26 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     /**
-     * Handle API response
-     * @param responseBody JSON response from server
+     * Handle successful login
+     * @param user Authenticated user returned by the server
      */
-    private void handleLoginResponse(String responseBody) {
-        try {
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            boolean success = jsonResponse.getBoolean("success");
-
-            if (success) {
-                // Login successful
-                JSONObject data = jsonResponse.getJSONObject("data");
-                int userId = data.getInt("id");
-                String userName = data.getString("name");
-                String userPhone = data.getString("phone");
-
-                // Save user data to SharedPreferences
-                saveUserData(userId, userName, userPhone);
-
-                // Navigate to next screen
-                navigateToAreaSelection();
-
-            } else {
-                // Login failed
-                String message = jsonResponse.optString("message", "Invalid phone or password");
-                showError(message);
-            }
+    private void handleLoginResponse(User user) {
+        // Save user data to the session
+        SessionStore.getInstance().setUser(user);
 
-        } catch (JSONException e) {
-            showError("Invalid phone or password");
-        }
-    }
+        // Start loading areas, the survey catalog and the last used area's wards in parallel
+        int lastAreaId = SessionStore.getInstance().getSelection().getAreaId();
+        SurveyRepository.getInstance().prefetch(lastAreaId);
 
-    /**
-     * Save user data to SharedPreferences
-     */
-    private void saveUserData(int userId, String userName, String userPhone) {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(KEY_USER_ID, userId);
-        editor.putString(KEY_USER_NAME, userName);
-        editor.putString(KEY_USER_PHONE, userPhone);
-        editor.putBoolean(KEY_IS_LOGGED_IN, true);
-        editor.apply();
+        // Navigate to next screen
+        navigateToAreaSelection();
     }
 
     /**
      * Check if user is already logged in
      */
     private boolean isUserLoggedIn() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        return prefs.getBoolean(KEY_IS_LOGGED_IN, false);
+        return SessionStore.getInstance().getUser().isLoggedIn();
     }
 
     /**
@@ -236,6 +168,13 @@ public class LoginActivity extends AppCompatActivity {
         finish();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop callbacks to this screen and cancel requests only it was waiting for
+        requestScope.cancel();
+    }
+
     /**
      * Show/hide loading state
      */
@@ -0,0 +1,595 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network Metrics
+ * Per-endpoint timing histograms, byte counters and error counts for every
+ * API call, collected by an OkHttp EventListener and by ApiService's decoder.
+ * Memory is fixed: a bounded number of endpoints, each with one
+ * LatencyHistogram per phase. Totals survive restarts in a small binary file.
+ * Request scopes (see RequestScope) report how many of their requests are
+ * in flight and how many were cancelled; those counters are per process.
+ *
+ * Phases:
+ *   DNS       host name lookup
+ *   CONNECT   TCP handshake
+ *   TLS       TLS handshake
+ *   TTFB      request fully sent until first response byte (server time)
+ *   TRANSFER  response headers and body download
+ *   PARSE     CPU time spent decoding the body on the network thread
+ */
+public class NetworkMetrics {
+
+    public static final int PHASE_DNS = 0;
+    public static final int PHASE_CONNECT = 1;
+    public static final int PHASE_TLS = 2;
+    public static final int PHASE_TTFB = 3;
+    public static final int PHASE_TRANSFER = 4;
+    public static final int PHASE_PARSE = 5;
+    public static final int PHASE_COUNT = 6;
+
+    public static final String[] PHASE_NAMES = {"dns", "connect", "tls", "ttfb", "transfer", "parse"};
+
+    public static final int ERROR_TIMEOUT = 0;
+    public static final int ERROR_DNS = 1;
+    public static final int ERROR_CONNECT = 2;
+    public static final int ERROR_CIRCUIT_OPEN = 3;
+    public static final int ERROR_CANCELED = 4;
+    public static final int ERROR_IO = 5;
+    public static final int ERROR_HTTP_4XX = 6;
+    public static final int ERROR_HTTP_5XX = 7;
+    public static final int ERROR_PARSE = 8;
+    public static final int ERROR_COUNT = 9;
+
+    public static final String[] ERROR_NAMES = {
+            "timeout", "dns", "connect", "circuit_open", "canceled", "io", "http_4xx", "http_5xx", "parse"
+    };
+
+    // Unknown paths beyond this many share one bucket so memory stays bounded
+    private static final int MAX_ENDPOINTS = 32;
+    private static final String OVERFLOW_ENDPOINT = "other";
+
+    private static final String FILE_NAME = "network_metrics.bin";
+    private static final int FILE_MAGIC = 0x4E4D0001; // 'N' 'M' version 1
+    private static final long SAVE_DELAY_SECONDS = 15;
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private final Map<String, ScopeStats> scopes = new LinkedHashMap<>();
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor();
+    private File file;
+    private boolean saveScheduled = false;
+
+    private NetworkMetrics() {
+    }
+
+    /**
+     * Get the process-wide metrics
+     * @return Metrics instance
+     */
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load persisted totals, call once at process start
+     * @param context Application context
+     */
+    public void init(Context context) {
+        File target = new File(context.getFilesDir(), FILE_NAME);
+        saver.execute(() -> load(target));
+    }
+
+    /**
+     * Factory to install on the OkHttpClient
+     */
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new CallListener();
+    }
+
+    /**
+     * Endpoint key for a request, e.g. "GET /api/wards/:id"
+     */
+    public static String endpointOf(Request request) {
+        return request.method() + " " + ApiService.endpointKey(request.url().encodedPath());
+    }
+
+    /**
+     * Record the time spent decoding a response body
+     * @param endpoint Endpoint key from endpointOf()
+     * @param cpuMs Thread CPU time spent decoding
+     */
+    public void recordParse(String endpoint, long cpuMs) {
+        recordPhase(endpoint, PHASE_PARSE, cpuMs);
+    }
+
+    /**
+     * Record a failure that happened outside the HTTP exchange
+     * @param endpoint Endpoint key from endpointOf()
+     * @param errorClass One of the ERROR_ constants
+     */
+    public synchronized void recordError(String endpoint, int errorClass) {
+        statsFor(endpoint).errors[errorClass]++;
+        markDirty();
+    }
+
+    /**
+     * Record a request started in a RequestScope
+     * @param scope Scope name
+     */
+    public synchronized void recordScopeStart(String scope) {
+        ScopeStats stats = scopeStatsFor(scope);
+        stats.started++;
+        stats.inFlight++;
+        stats.peakInFlight = Math.max(stats.peakInFlight, stats.inFlight);
+    }
+
+    /**
+     * Record a scoped request that completed or was cancelled with its scope
+     * @param scope Scope name
+     * @param cancelled true if the scope was cancelled before the request completed
+     */
+    public synchronized void recordScopeEnd(String scope, boolean cancelled) {
+        ScopeStats stats = scopeStatsFor(scope);
+        stats.inFlight = Math.max(0, stats.inFlight - 1);
+        if (cancelled) {
+            stats.cancelled++;
+        }
+    }
+
+    /**
+     * Copy of the request scope counters
+     * @return One entry per scope name, in first-seen order
+     */
+    public synchronized List<ScopeStats> getScopeSnapshot() {
+        List<ScopeStats> snapshot = new ArrayList<>(scopes.size());
+        for (ScopeStats stats : scopes.values()) {
+            snapshot.add(stats.copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copy of the current statistics, safe to read from any thread
+     * @return One entry per endpoint, in first-seen order
+     */
+    public synchronized List<EndpointStats> getSnapshot() {
+        List<EndpointStats> snapshot = new ArrayList<>(endpoints.size());
+        for (EndpointStats stats : endpoints.values()) {
+            snapshot.add(stats.copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discard all statistics, in memory and on disk
+     */
+    public synchronized void reset() {
+        endpoints.clear();
+        // Keep the live in-flight counts, only the totals start over
+        for (ScopeStats stats : scopes.values()) {
+            stats.started = stats.inFlight;
+            stats.peakInFlight = stats.inFlight;
+            stats.cancelled = 0;
+        }
+        markDirty();
+    }
+
+    private synchronized void recordPhase(String endpoint, int phase, long ms) {
+        statsFor(endpoint).phases[phase].record(ms);
+        markDirty();
+    }
+
+    private synchronized void recordBytes(String endpoint, long sent, long received) {
+        EndpointStats stats = statsFor(endpoint);
+        stats.bytesSent += sent;
+        stats.bytesReceived += received;
+        markDirty();
+    }
+
+    private synchronized void recordCall(String endpoint) {
+        statsFor(endpoint).calls++;
+        markDirty();
+    }
+
+    /**
+     * Must hold the lock
+     */
+    private ScopeStats scopeStatsFor(String scope) {
+        ScopeStats stats = scopes.get(scope);
+        if (stats == null) {
+            if (scopes.size() >= MAX_ENDPOINTS && !OVERFLOW_ENDPOINT.equals(scope)) {
+                return scopeStatsFor(OVERFLOW_ENDPOINT);
+            }
+            stats = new ScopeStats(scope);
+            scopes.put(scope, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Must hold the lock
+     */
+    private EndpointStats statsFor(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            if (endpoints.size() >= MAX_ENDPOINTS && !OVERFLOW_ENDPOINT.equals(endpoint)) {
+                return statsFor(OVERFLOW_ENDPOINT);
+            }
+            stats = new EndpointStats(endpoint);
+            endpoints.put(endpoint, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Coalesce writes: one save at most every SAVE_DELAY_SECONDS. Must hold the lock.
+     */
+    private void markDirty() {
+        if (!saveScheduled) {
+            saveScheduled = true;
+            saver.schedule(this::save, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Runs on the saver thread
+     */
+    private void save() {
+        List<EndpointStats> snapshot;
+        File target;
+        synchronized (this) {
+            saveScheduled = false;
+            target = file;
+            snapshot = getSnapshot();
+        }
+        if (target == null) {
+            return;
+        }
+
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            Varints.write(out, snapshot.size());
+            for (EndpointStats stats : snapshot) {
+                out.writeUTF(stats.endpoint);
+                Varints.write(out, stats.calls);
+                Varints.write(out, stats.bytesSent);
+                Varints.write(out, stats.bytesReceived);
+                for (long errors : stats.errors) {
+                    Varints.write(out, errors);
+                }
+                for (LatencyHistogram histogram : stats.phases) {
+                    histogram.writeTo(out);
+                }
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        tmp.renameTo(target);
+    }
+
+    /**
+     * Runs on the saver thread; merges the file into anything recorded meanwhile
+     */
+    private void load(File target) {
+        List<EndpointStats> loaded = new ArrayList<>();
+        if (target.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(target)))) {
+                if (in.readInt() == FILE_MAGIC) {
+                    long count = Varints.read(in);
+                    for (long i = 0; i < count && i < MAX_ENDPOINTS; i++) {
+                        EndpointStats stats = new EndpointStats(in.readUTF());
+                        stats.calls = Varints.read(in);
+                        stats.bytesSent = Varints.read(in);
+                        stats.bytesReceived = Varints.read(in);
+                        for (int e = 0; e < ERROR_COUNT; e++) {
+                            stats.errors[e] = Varints.read(in);
+                        }
+                        for (LatencyHistogram histogram : stats.phases) {
+                            histogram.readFrom(in);
+                        }
+                        loaded.add(stats);
+                    }
+                }
+            } catch (IOException e) {
+                // Corrupt or old format, start over
+                loaded.clear();
+            }
+        }
+
+        synchronized (this) {
+            file = target;
+            Map<String, EndpointStats> recent = new LinkedHashMap<>(endpoints);
+            endpoints.clear();
+            for (EndpointStats stats : loaded) {
+                endpoints.put(stats.endpoint, stats);
+            }
+            for (EndpointStats stats : recent.values()) {
+                statsFor(stats.endpoint).add(stats);
+            }
+        }
+    }
+
+    /**
+     * Map a call failure to an error class
+     */
+    static int classify(Call call, IOException e) {
+        if (call.isCanceled()) {
+            return ERROR_CANCELED;
+        }
+        if (e instanceof CircuitBreaker.CircuitOpenException) {
+            return ERROR_CIRCUIT_OPEN;
+        }
+        if (e instanceof SocketTimeoutException) {
+            return ERROR_TIMEOUT;
+        }
+        if (e instanceof UnknownHostException) {
+            return ERROR_DNS;
+        }
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException) {
+            return ERROR_CONNECT;
+        }
+        if (e instanceof InterruptedIOException) {
+            return ERROR_TIMEOUT;
+        }
+        return ERROR_IO;
+    }
+
+    /**
+     * Statistics for one endpoint
+     */
+    public static class EndpointStats {
+        private final String endpoint;
+        private final LatencyHistogram[] phases = new LatencyHistogram[PHASE_COUNT];
+        private final long[] errors = new long[ERROR_COUNT];
+        private long calls;
+        private long bytesSent;
+        private long bytesReceived;
+
+        EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+            for (int i = 0; i < PHASE_COUNT; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        /**
+         * @param phase One of the PHASE_ constants
+         */
+        public LatencyHistogram getPhase(int phase) {
+            return phases[phase];
+        }
+
+        /**
+         * @param errorClass One of the ERROR_ constants
+         */
+        public long getErrorCount(int errorClass) {
+            return errors[errorClass];
+        }
+
+        EndpointStats copy() {
+            EndpointStats copy = new EndpointStats(endpoint);
+            copy.add(this);
+            return copy;
+        }
+
+        /**
+         * Must hold the NetworkMetrics lock
+         */
+        void add(EndpointStats other) {
+            calls += other.calls;
+            bytesSent += other.bytesSent;
+            bytesReceived += other.bytesReceived;
+            for (int i = 0; i < ERROR_COUNT; i++) {
+                errors[i] += other.errors[i];
+            }
+            for (int i = 0; i < PHASE_COUNT; i++) {
+                phases[i].add(other.phases[i]);
+            }
+        }
+    }
+
+    /**
+     * Request counters of one RequestScope name
+     */
+    public static class ScopeStats {
+        private final String scope;
+        private int inFlight;
+        private int peakInFlight;
+        private long started;
+        private long cancelled;
+
+        ScopeStats(String scope) {
+            this.scope = scope;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        /**
+         * @return Requests currently running for live scopes of this name
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getPeakInFlight() {
+            return peakInFlight;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        /**
+         * @return Requests dropped because their scope ended first
+         */
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        ScopeStats copy() {
+            ScopeStats copy = new ScopeStats(scope);
+            copy.inFlight = inFlight;
+            copy.peakInFlight = peakInFlight;
+            copy.started = started;
+            copy.cancelled = cancelled;
+            return copy;
+        }
+    }
+
+    /**
+     * Per-call listener; OkHttp calls it from one thread at a time
+     */
+    private class CallListener extends EventListener {
+        private String endpoint;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestSent;
+        private long responseStart;
+        private long bytesSent;
+
+        private String endpoint(Call call) {
+            if (endpoint == null) {
+                endpoint = endpointOf(call.request());
+            }
+            return endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            recordCall(endpoint(call));
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            recordPhase(endpoint(call), PHASE_DNS, elapsedMs(dnsStart));
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+            secureConnectStart = 0;
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = System.nanoTime();
+            recordPhase(endpoint(call), PHASE_CONNECT, elapsedMs(connectStart));
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            recordPhase(endpoint(call), PHASE_TLS, elapsedMs(secureConnectStart));
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            if (secureConnectStart == 0) {
+                recordPhase(endpoint(call), PHASE_CONNECT, elapsedMs(connectStart));
+            }
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            requestSent = System.nanoTime();
+            bytesSent = request.headers().byteCount();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestSent = System.nanoTime();
+            bytesSent += byteCount;
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            responseStart = System.nanoTime();
+            recordPhase(endpoint(call), PHASE_TTFB, elapsedMs(requestSent));
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            recordBytes(endpoint(call), bytesSent, response.headers().byteCount());
+            bytesSent = 0;
+            if (response.code() >= 500) {
+                recordError(endpoint(call), ERROR_HTTP_5XX);
+            } else if (response.code() >= 400) {
+                recordError(endpoint(call), ERROR_HTTP_4XX);
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            recordBytes(endpoint(call), 0, byteCount);
+            recordPhase(endpoint(call), PHASE_TRANSFER, elapsedMs(responseStart));
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            recordError(endpoint(call), classify(call, ioe));
+        }
+
+        private long elapsedMs(long startNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.electionsurvey2;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.widget.TextView;
@@ -24,9 +23,6 @@ public class NotesActivity extends AppCompatActivity implements NavigationView.O
     private Toolbar toolbar;
     private TextView tvUserEmail;
 
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-    private static final String KEY_USER_NAME = "user_name";
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -86,9 +82,7 @@ public class NotesActivity extends AppCompatActivity implements NavigationView.O
      * Update user information in drawer header
      */
     private void updateUserInfo() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        String userName = prefs.getString(KEY_USER_NAME, "User");
-        tvUserEmail.setText(userName);
+        tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
     }
 
     /**
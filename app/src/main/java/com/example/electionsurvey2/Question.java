@@ -11,6 +11,9 @@ public class Question {
     private String questionText;
     private String type;  // "text", "single", "multiple"
     private List<Option> options;
+    private String fieldType;  // Optional server hint: "name", "age", "phone", "email", "number", "text"
+    private InputSpec inputSpec;
+    private Integer showIfOptionId;  // Optional skip logic: only asked when this earlier option was chosen
 
     /**
      * Constructor
@@ -20,10 +23,39 @@ public class Question {
      * @param options List of options (empty for text questions)
      */
     public Question(int id, String questionText, String type, List<Option> options) {
+        this(id, questionText, type, null, options);
+    }
+
+    /**
+     * Constructor with an explicit field type
+     * @param id Question ID
+     * @param questionText Question text
+     * @param type Question type (text, single, multiple)
+     * @param fieldType Server field type, or null to infer it from the text
+     * @param options List of options (empty for text questions)
+     */
+    public Question(int id, String questionText, String type, String fieldType, List<Option> options) {
         this.id = id;
         this.questionText = questionText;
         this.type = type;
+        this.fieldType = fieldType;
         this.options = options;
+        this.inputSpec = InputSpec.compile(type, fieldType, questionText);
+    }
+
+    /**
+     * Constructor with skip logic
+     * @param id Question ID
+     * @param questionText Question text
+     * @param type Question type (text, single, multiple)
+     * @param fieldType Server field type, or null to infer it from the text
+     * @param showIfOptionId Option of an earlier question that must be chosen, or null to always ask
+     * @param options List of options (empty for text questions)
+     */
+    public Question(int id, String questionText, String type, String fieldType,
+                    Integer showIfOptionId, List<Option> options) {
+        this(id, questionText, type, fieldType, options);
+        this.showIfOptionId = showIfOptionId;
     }
 
     // Getters and Setters
@@ -41,6 +73,7 @@ public class Question {
 
     public void setQuestionText(String questionText) {
         this.questionText = questionText;
+        this.inputSpec = InputSpec.compile(type, fieldType, questionText);
     }
 
     public String getType() {
@@ -49,6 +82,7 @@ public class Question {
 
     public void setType(String type) {
         this.type = type;
+        this.inputSpec = InputSpec.compile(type, fieldType, questionText);
     }
 
     public List<Option> getOptions() {
@@ -58,9 +92,22 @@ public class Question {
     public void setOptions(List<Option> options) {
         this.options = options;
     }
-}
-
-
 
+    public String getFieldType() {
+        return fieldType;
+    }
 
+    /**
+     * @return Option that must have been chosen for this question to be asked, or null
+     */
+    public Integer getShowIfOptionId() {
+        return showIfOptionId;
+    }
 
+    /**
+     * @return Input rules compiled when the question was built
+     */
+    public InputSpec getInputSpec() {
+        return inputSpec;
+    }
+}
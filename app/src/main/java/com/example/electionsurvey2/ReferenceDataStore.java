@@ -0,0 +1,393 @@
+package com.example.electionsurvey2;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reference Data Store
+ * On-device SQLite copy of areas, wards, the survey catalog and survey
+ * questions with their options, so the selection flow works instantly and
+ * without connectivity.
+ * Lists keep the server's order through a position column. A sync_state row
+ * per list tells "never downloaded" apart from "downloaded and empty", and
+ * records the survey version that stored questions belong to.
+ * All methods do disk I/O and must be called off the main thread.
+ */
+public class ReferenceDataStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "reference_data.db";
+    private static final int DATABASE_VERSION = 4;
+
+    private static volatile ReferenceDataStore instance;
+
+    private ReferenceDataStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Get the process-wide store
+     * @param context Any context, the application context is kept
+     * @return Store instance
+     */
+    public static ReferenceDataStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ReferenceDataStore.class) {
+                if (instance == null) {
+                    instance = new ReferenceDataStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE areas (id INTEGER PRIMARY KEY, area_name TEXT NOT NULL, position INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE wards (id INTEGER PRIMARY KEY, area_id INTEGER NOT NULL, "
+                + "ward_name TEXT NOT NULL, position INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_wards_area ON wards (area_id, position)");
+        db.execSQL("CREATE TABLE surveys (id INTEGER PRIMARY KEY, title TEXT NOT NULL, description TEXT, "
+                + "question_count INTEGER NOT NULL, version INTEGER NOT NULL, position INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE questions (id INTEGER PRIMARY KEY, survey_id INTEGER NOT NULL, "
+                + "question_text TEXT NOT NULL, type TEXT NOT NULL, field_type TEXT, show_if_option_id INTEGER, "
+                + "position INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_questions_survey ON questions (survey_id, position)");
+        db.execSQL("CREATE TABLE options (id INTEGER PRIMARY KEY, question_id INTEGER NOT NULL, "
+                + "option_text TEXT NOT NULL, position INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_options_question ON options (question_id, position)");
+        db.execSQL("CREATE TABLE sync_state (list_key TEXT PRIMARY KEY, synced_at INTEGER NOT NULL, "
+                + "version INTEGER NOT NULL DEFAULT " + Survey.VERSION_UNKNOWN + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here is a cache of server data, rebuilding is always safe
+        db.execSQL("DROP TABLE IF EXISTS areas");
+        db.execSQL("DROP TABLE IF EXISTS wards");
+        db.execSQL("DROP TABLE IF EXISTS surveys");
+        db.execSQL("DROP TABLE IF EXISTS questions");
+        db.execSQL("DROP TABLE IF EXISTS options");
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    /**
+     * Load all areas
+     * @return Areas in server order, or null if never downloaded
+     */
+    public List<Area> loadAreas() {
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (!isSynced(db, areasKey())) {
+                return null;
+            }
+            List<Area> areas = new ArrayList<>();
+            try (Cursor cursor = db.rawQuery("SELECT id, area_name FROM areas ORDER BY position", null)) {
+                while (cursor.moveToNext()) {
+                    areas.add(new Area(cursor.getInt(0), cursor.getString(1)));
+                }
+            }
+            return areas;
+        } catch (SQLiteException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace all areas
+     * @param areas Areas as returned by the server
+     */
+    public void saveAreas(List<Area> areas) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete("areas", null, null);
+                try (SQLiteStatement insert = db.compileStatement(
+                        "INSERT OR REPLACE INTO areas (id, area_name, position) VALUES (?, ?, ?)")) {
+                    for (int i = 0; i < areas.size(); i++) {
+                        Area area = areas.get(i);
+                        insert.bindLong(1, area.getId());
+                        insert.bindString(2, area.getAreaName());
+                        insert.bindLong(3, i);
+                        insert.executeInsert();
+                    }
+                }
+                markSynced(db, areasKey(), Survey.VERSION_UNKNOWN);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            // Cache only, the data is still shown from memory
+        }
+    }
+
+    /**
+     * Load wards of one area
+     * @param areaId Area ID
+     * @return Wards in server order, or null if never downloaded
+     */
+    public List<Ward> loadWards(int areaId) {
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (!isSynced(db, wardsKey(areaId))) {
+                return null;
+            }
+            List<Ward> wards = new ArrayList<>();
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT id, ward_name FROM wards WHERE area_id = ? ORDER BY position",
+                    new String[]{String.valueOf(areaId)})) {
+                while (cursor.moveToNext()) {
+                    wards.add(new Ward(cursor.getInt(0), cursor.getString(1)));
+                }
+            }
+            return wards;
+        } catch (SQLiteException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace the wards of one area
+     * @param areaId Area ID
+     * @param wards Wards as returned by the server
+     */
+    public void saveWards(int areaId, List<Ward> wards) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete("wards", "area_id = ?", new String[]{String.valueOf(areaId)});
+                try (SQLiteStatement insert = db.compileStatement(
+                        "INSERT OR REPLACE INTO wards (id, area_id, ward_name, position) VALUES (?, ?, ?, ?)")) {
+                    for (int i = 0; i < wards.size(); i++) {
+                        Ward ward = wards.get(i);
+                        insert.bindLong(1, ward.getId());
+                        insert.bindLong(2, areaId);
+                        insert.bindString(3, ward.getWardName());
+                        insert.bindLong(4, i);
+                        insert.executeInsert();
+                    }
+                }
+                markSynced(db, wardsKey(areaId), Survey.VERSION_UNKNOWN);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            // Cache only, the data is still shown from memory
+        }
+    }
+
+    /**
+     * Load the survey catalog
+     * @return Surveys in server order, or null if never downloaded
+     */
+    public List<Survey> loadSurveys() {
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (!isSynced(db, surveysKey())) {
+                return null;
+            }
+            List<Survey> surveys = new ArrayList<>();
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT id, title, description, question_count, version FROM surveys ORDER BY position", null)) {
+                while (cursor.moveToNext()) {
+                    surveys.add(new Survey(cursor.getInt(0), cursor.getString(1), cursor.getString(2),
+                            cursor.getInt(3), cursor.getLong(4)));
+                }
+            }
+            return surveys;
+        } catch (SQLiteException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace the survey catalog
+     * @param surveys Surveys as returned by the server
+     */
+    public void saveSurveys(List<Survey> surveys) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete("surveys", null, null);
+                try (SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO surveys "
+                        + "(id, title, description, question_count, version, position) VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 0; i < surveys.size(); i++) {
+                        Survey survey = surveys.get(i);
+                        insert.bindLong(1, survey.getId());
+                        insert.bindString(2, survey.getTitle());
+                        if (survey.getDescription() != null) {
+                            insert.bindString(3, survey.getDescription());
+                        } else {
+                            insert.bindNull(3);
+                        }
+                        insert.bindLong(4, survey.getQuestionCount());
+                        insert.bindLong(5, survey.getVersion());
+                        insert.bindLong(6, i);
+                        insert.executeInsert();
+                    }
+                }
+                markSynced(db, surveysKey(), Survey.VERSION_UNKNOWN);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            // Cache only, the data is still shown from memory
+        }
+    }
+
+    /**
+     * Version of the stored questions of a survey
+     * @param surveyId Survey ID
+     * @return Version they were downloaded for, VERSION_UNKNOWN if none or not known
+     */
+    public long loadQuestionsVersion(int surveyId) {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT version FROM sync_state WHERE list_key = ?", new String[]{questionsKey(surveyId)})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : Survey.VERSION_UNKNOWN;
+        } catch (SQLiteException e) {
+            return Survey.VERSION_UNKNOWN;
+        }
+    }
+
+    /**
+     * Load the questions of a survey with their options
+     * Uses one joined query instead of one options query per question.
+     * @param surveyId Survey ID
+     * @return Questions in server order, or null if never downloaded
+     */
+    public List<Question> loadQuestions(int surveyId) {
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (!isSynced(db, questionsKey(surveyId))) {
+                return null;
+            }
+            List<Question> questions = new ArrayList<>();
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT q.id, q.question_text, q.type, q.field_type, q.show_if_option_id, o.id, o.option_text "
+                            + "FROM questions q LEFT JOIN options o ON o.question_id = q.id "
+                            + "WHERE q.survey_id = ? ORDER BY q.position, o.position",
+                    new String[]{String.valueOf(surveyId)})) {
+                Question current = null;
+                while (cursor.moveToNext()) {
+                    int questionId = cursor.getInt(0);
+                    if (current == null || current.getId() != questionId) {
+                        current = new Question(questionId, cursor.getString(1), cursor.getString(2),
+                                cursor.getString(3), cursor.isNull(4) ? null : cursor.getInt(4), new ArrayList<>());
+                        questions.add(current);
+                    }
+                    if (!cursor.isNull(5)) {
+                        current.getOptions().add(new Option(cursor.getInt(5), cursor.getString(6)));
+                    }
+                }
+            }
+            return questions;
+        } catch (SQLiteException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace the questions of a survey and their options
+     * @param surveyId Survey ID
+     * @param version Survey version the questions belong to
+     * @param questions Questions as returned by the server
+     */
+    public void saveQuestions(int surveyId, long version, List<Question> questions) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                String[] surveyArgs = {String.valueOf(surveyId)};
+                db.delete("options", "question_id IN (SELECT id FROM questions WHERE survey_id = ?)", surveyArgs);
+                db.delete("questions", "survey_id = ?", surveyArgs);
+
+                try (SQLiteStatement insertQuestion = db.compileStatement(
+                        "INSERT OR REPLACE INTO questions "
+                                + "(id, survey_id, question_text, type, field_type, show_if_option_id, position) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+                     SQLiteStatement insertOption = db.compileStatement(
+                        "INSERT OR REPLACE INTO options (id, question_id, option_text, position) VALUES (?, ?, ?, ?)")) {
+                    for (int i = 0; i < questions.size(); i++) {
+                        Question question = questions.get(i);
+                        insertQuestion.bindLong(1, question.getId());
+                        insertQuestion.bindLong(2, surveyId);
+                        insertQuestion.bindString(3, question.getQuestionText());
+                        insertQuestion.bindString(4, question.getType());
+                        if (question.getFieldType() != null) {
+                            insertQuestion.bindString(5, question.getFieldType());
+                        } else {
+                            insertQuestion.bindNull(5);
+                        }
+                        if (question.getShowIfOptionId() != null) {
+                            insertQuestion.bindLong(6, question.getShowIfOptionId());
+                        } else {
+                            insertQuestion.bindNull(6);
+                        }
+                        insertQuestion.bindLong(7, i);
+                        insertQuestion.executeInsert();
+
+                        List<Option> options = question.getOptions();
+                        for (int j = 0; j < options.size(); j++) {
+                            Option option = options.get(j);
+                            insertOption.bindLong(1, option.getId());
+                            insertOption.bindLong(2, question.getId());
+                            insertOption.bindString(3, option.getOptionText());
+                            insertOption.bindLong(4, j);
+                            insertOption.executeInsert();
+                        }
+                    }
+                }
+                markSynced(db, questionsKey(surveyId), version);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            // Cache only, the data is still shown from memory
+        }
+    }
+
+    private static boolean isSynced(SQLiteDatabase db, String listKey) {
+        try (Cursor cursor = db.rawQuery("SELECT 1 FROM sync_state WHERE list_key = ?", new String[]{listKey})) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    private static void markSynced(SQLiteDatabase db, String listKey, long version) {
+        ContentValues values = new ContentValues();
+        values.put("list_key", listKey);
+        values.put("synced_at", System.currentTimeMillis());
+        values.put("version", version);
+        db.insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static String areasKey() {
+        return "areas";
+    }
+
+    private static String wardsKey(int areaId) {
+        return "wards/" + areaId;
+    }
+
+    private static String surveysKey() {
+        return "surveys";
+    }
+
+    private static String questionsKey(int surveyId) {
+        return "questions/" + surveyId;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.electionsurvey2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Request Scope
+ * Ties network callbacks to a lifecycle, usually an activity's.
+ * Callbacks wrapped by a scope are dropped once the scope is cancelled, and
+ * forget their target so a finished activity is not kept alive by a slow
+ * request. A request started for the scope alone is cancelled with it; a
+ * request shared with other screens keeps running for them and is only
+ * cancelled when its last subscriber is gone.
+ * The number of requests each scope has in flight is reported to
+ * NetworkMetrics. Must be used on the main thread.
+ */
+public class RequestScope {
+
+    private final String name;
+    private final Set<ScopedCallback<?>> active = new LinkedHashSet<>();
+    private final List<Runnable> cancelHooks = new ArrayList<>();
+    private boolean cancelled = false;
+
+    /**
+     * Constructor
+     * @param name Scope name used in the metrics, e.g. the activity class name
+     */
+    public RequestScope(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return Requests started in this scope that have not completed yet
+     */
+    public int getInFlightCount() {
+        return active.size();
+    }
+
+    /**
+     * Bind a callback to this scope
+     * @param callback Callback to deliver to while the scope is alive
+     * @return Callback to pass to ApiService or SurveyRepository
+     */
+    public <T> ApiService.DataCallback<T> wrap(ApiService.DataCallback<T> callback) {
+        return wrap(callback, null);
+    }
+
+    /**
+     * Bind a callback to this scope and run a hook if the scope is cancelled first
+     * @param callback Callback to deliver to while the scope is alive
+     * @param onCancel Releases the underlying request, e.g. cancels the call; may be null
+     * @return Scoped callback
+     */
+    public <T> ScopedCallback<T> wrap(ApiService.DataCallback<T> callback, Runnable onCancel) {
+        ScopedCallback<T> scoped = new ScopedCallback<>(this, callback, onCancel);
+        if (cancelled) {
+            // Started after onDestroy, never delivered
+            scoped.delegate = null;
+            return scoped;
+        }
+        active.add(scoped);
+        NetworkMetrics.getInstance().recordScopeStart(name);
+        return scoped;
+    }
+
+    /**
+     * Run a hook when the scope is cancelled, e.g. to unregister a listener
+     * Unlike wrap() this is not a request and is not counted as in flight.
+     * @param hook Run once on cancel, or right away if already cancelled
+     */
+    public void whenCancelled(Runnable hook) {
+        if (cancelled) {
+            hook.run();
+            return;
+        }
+        cancelHooks.add(hook);
+    }
+
+    /**
+     * Drop every pending callback and release the requests behind them
+     * Call from onDestroy. Requests wrapped afterwards are dropped as well.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+
+        List<ScopedCallback<?>> pending = new ArrayList<>(active);
+        active.clear();
+        for (ScopedCallback<?> scoped : pending) {
+            scoped.delegate = null;
+            NetworkMetrics.getInstance().recordScopeEnd(name, true);
+            if (scoped.onCancel != null) {
+                scoped.onCancel.run();
+            }
+        }
+
+        List<Runnable> hooks = new ArrayList<>(cancelHooks);
+        cancelHooks.clear();
+        for (Runnable hook : hooks) {
+            hook.run();
+        }
+    }
+
+    private void settled(ScopedCallback<?> scoped) {
+        if (active.remove(scoped)) {
+            NetworkMetrics.getInstance().recordScopeEnd(name, false);
+        }
+    }
+
+    /**
+     * Callback that delivers at most once, and never after its scope is cancelled
+     */
+    public static final class ScopedCallback<T> implements ApiService.DataCallback<T> {
+        private final RequestScope scope;
+        private final Runnable onCancel;
+        private ApiService.DataCallback<T> delegate;
+
+        ScopedCallback(RequestScope scope, ApiService.DataCallback<T> delegate, Runnable onCancel) {
+            this.scope = scope;
+            this.delegate = delegate;
+            this.onCancel = onCancel;
+        }
+
+        @Override
+        public void onSuccess(T data) {
+            ApiService.DataCallback<T> target = settle();
+            if (target != null) {
+                target.onSuccess(data);
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            ApiService.DataCallback<T> target = settle();
+            if (target != null) {
+                target.onError(error);
+            }
+        }
+
+        /**
+         * @return Callback to deliver to, or null if cancelled or already delivered
+         */
+        private ApiService.DataCallback<T> settle() {
+            ApiService.DataCallback<T> target = delegate;
+            delegate = null;
+            scope.settled(this);
+            return target;
+        }
+    }
+}
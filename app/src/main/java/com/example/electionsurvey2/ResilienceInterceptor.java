@@ -0,0 +1,117 @@
+package com.example.electionsurvey2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Resilience Interceptor
+ * Wraps every API call with the circuit breaker, an adaptive read timeout
+ * and, for idempotent reference reads, short jittered retries on transient
+ * failures. A retry waits on the calling thread, so only policies with
+ * delays of a few seconds belong here.
+ * Installed as an application interceptor so cached and revalidated
+ * responses count as successes and a retry re-runs the whole chain.
+ */
+public class ResilienceInterceptor implements Interceptor {
+
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencyTracker;
+
+    /**
+     * Constructor
+     * @param circuitBreaker Breaker for the API host
+     * @param latencyTracker Per-endpoint latency estimates
+     */
+    public ResilienceInterceptor(CircuitBreaker circuitBreaker, LatencyTracker latencyTracker) {
+        this.circuitBreaker = circuitBreaker;
+        this.latencyTracker = latencyTracker;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RetryPolicy policy = RetryPolicy.forRequest(request);
+        String endpoint = ApiService.endpointKey(request.url().encodedPath());
+
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.acquire();
+            boolean lastAttempt = attempt >= policy.getMaxAttempts();
+            int timeoutMs = (int) latencyTracker.timeoutFor(endpoint);
+
+            Response response;
+            try {
+                response = chain.withReadTimeout(timeoutMs, TimeUnit.MILLISECONDS).proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    // The caller went away (RequestScope), the server did nothing wrong
+                    circuitBreaker.release();
+                    throw e;
+                }
+                circuitBreaker.onFailure(0);
+                if (lastAttempt) {
+                    throw e;
+                }
+                sleep(policy.delayBeforeRetry(attempt));
+                continue;
+            }
+
+            // Network responses only, a cache hit says nothing about the server
+            if (response.networkResponse() != null) {
+                latencyTracker.record(endpoint,
+                        response.receivedResponseAtMillis() - response.sentRequestAtMillis());
+            }
+
+            if (!isTransientFailure(response.code())) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+
+            long retryAfterMs = parseRetryAfter(response.header("Retry-After"));
+            circuitBreaker.onFailure(retryAfterMs);
+
+            // Give up if the server asked for a longer pause than this policy will wait
+            if (lastAttempt || retryAfterMs > policy.getMaxDelayMs() || chain.call().isCanceled()) {
+                return response;
+            }
+            response.close();
+            sleep(Math.max(retryAfterMs, policy.delayBeforeRetry(attempt)));
+        }
+    }
+
+    /**
+     * Whether a status code means "try again later" rather than "this request is wrong"
+     */
+    static boolean isTransientFailure(int code) {
+        return code == 408 || code == 429 || code >= 500;
+    }
+
+    /**
+     * Parse a Retry-After header given in seconds
+     * @param value Header value, may be null
+     * @return Delay in milliseconds, 0 if absent or not in seconds
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void sleep(long delayMs) throws IOException {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Retry interrupted");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.electionsurvey2;
+
+import java.util.Random;
+
+import okhttp3.Request;
+
+/**
+ * Retry Policy
+ * How often and how patiently a request may be retried.
+ * Delays grow exponentially with full jitter so devices that failed
+ * together do not retry together.
+ */
+public class RetryPolicy {
+
+    // Idempotent reference data reads: retry briefly, the user is waiting on a spinner
+    public static final RetryPolicy REFERENCE_DATA = new RetryPolicy(3, 500, 4000);
+
+    // Everything else: single attempt. A failed POST may already have been
+    // processed, so login is never replayed automatically. Survey uploads are
+    // retried by SubmissionOutbox and SyncScheduler, which back off without
+    // holding a dispatcher slot; retrying here as well would add a third layer
+    public static final RetryPolicy NO_RETRY = new RetryPolicy(1, 0, 0);
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    /**
+     * Constructor
+     * @param maxAttempts Total attempts including the first one
+     * @param baseDelayMs Delay cap before the first retry
+     * @param maxDelayMs Upper bound for any delay
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Pick the policy for a request by method and endpoint
+     * @param request OkHttp request
+     * @return Policy to apply
+     */
+    public static RetryPolicy forRequest(Request request) {
+        String method = request.method();
+        String path = request.url().encodedPath();
+        if ("GET".equals(method) && path.startsWith("/api/")) {
+            return REFERENCE_DATA;
+        }
+        return NO_RETRY;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    /**
+     * Jittered delay before the given retry
+     * @param retry 1 for the first retry, 2 for the second, ...
+     * @return Delay in milliseconds
+     */
+    public long delayBeforeRetry(int retry) {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(retry - 1, 16));
+        return (long) (RANDOM.nextDouble() * cap);
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.electionsurvey2;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Search Index
+ * Type-ahead index over a list of names, built once when the list loads.
+ *
+ * Names and queries go through the same fold: case-insensitive, Devanagari
+ * transliterated to Latin, accents and punctuation dropped, and a few
+ * spelling variants merged (bh/b, sh/s, w/v, doubled letters). "Shivaji
+ * Nagar", "shivaji nagar" and "शिवाजी नगर" therefore all fold to "sivaji nagar".
+ *
+ * Every query word must match a word of the name. Prefix matches come from
+ * binary search over the sorted words; words of three letters or more also
+ * match inside words through a trigram index. Prefix matches are listed
+ * first, each group in the original list order.
+ *
+ * search() reuses buffers owned by the index and allocates nothing, so it
+ * can run on every keystroke. It is not thread-safe; call it from the main thread.
+ */
+public final class SearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int ALPHABET = 37; // a-z, 0-9 and "none"
+
+    private final int size;
+    private final String[] folded;
+
+    // Prefix index: every word of every name, sorted
+    private final String[] words;
+    private final int[] wordItems;
+
+    // Trigram index: sorted keys, postings[offsets[k] .. offsets[k + 1]) in item order
+    private final int[] gramKeys;
+    private final int[] gramOffsets;
+    private final int[] postings;
+
+    // Per-query state, reused
+    private final StringBuilder query = new StringBuilder(32);
+    private final int[] marks;
+    private final boolean[] substringOnly;
+    private int generation = 0;
+
+    /**
+     * Build the index
+     * @param names Name of each item, in list order
+     */
+    public SearchIndex(List<String> names) {
+        size = names.size();
+        folded = new String[size];
+        marks = new int[size];
+        substringOnly = new boolean[size];
+
+        StringBuilder buffer = new StringBuilder();
+        int wordCount = 0;
+        int gramCount = 0;
+        for (int i = 0; i < size; i++) {
+            buffer.setLength(0);
+            fold(names.get(i), buffer);
+            folded[i] = buffer.toString();
+            wordCount += countWords(folded[i]);
+            gramCount += Math.max(0, folded[i].length() - GRAM + 1);
+        }
+
+        // Words, sorted with their item alongside
+        String[] unsortedWords = new String[wordCount];
+        int[] unsortedItems = new int[wordCount];
+        int w = 0;
+        for (int i = 0; i < size; i++) {
+            String name = folded[i];
+            int start = 0;
+            while (start < name.length()) {
+                int end = name.indexOf(' ', start);
+                if (end < 0) {
+                    end = name.length();
+                }
+                unsortedWords[w] = name.substring(start, end);
+                unsortedItems[w] = i;
+                w++;
+                start = end + 1;
+            }
+        }
+        Integer[] order = new Integer[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> unsortedWords[a].compareTo(unsortedWords[b]));
+        words = new String[wordCount];
+        wordItems = new int[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = unsortedWords[order[i]];
+            wordItems[i] = unsortedItems[order[i]];
+        }
+
+        // Trigrams as (key << 32 | item), sorted and de-duplicated
+        long[] pairs = new long[gramCount];
+        int p = 0;
+        for (int i = 0; i < size; i++) {
+            String name = folded[i];
+            for (int start = 0; start + GRAM <= name.length(); start++) {
+                int key = gramKey(name, start);
+                if (key >= 0) {
+                    pairs[p++] = ((long) key << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, p);
+
+        int keys = 0;
+        int unique = 0;
+        for (int i = 0; i < p; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                unique++;
+                if (i == 0 || (pairs[i] >>> 32) != (pairs[i - 1] >>> 32)) {
+                    keys++;
+                }
+            }
+        }
+        gramKeys = new int[keys];
+        gramOffsets = new int[keys + 1];
+        postings = new int[unique];
+        int k = -1;
+        int u = 0;
+        for (int i = 0; i < p; i++) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) {
+                continue;
+            }
+            int key = (int) (pairs[i] >>> 32);
+            if (k < 0 || gramKeys[k] != key) {
+                k++;
+                gramKeys[k] = key;
+                gramOffsets[k] = u;
+            }
+            postings[u++] = (int) pairs[i];
+        }
+        gramOffsets[keys] = unique;
+    }
+
+    /**
+     * @return Number of indexed items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the items matching a query
+     * @param text Query as typed
+     * @param out Receives matching item positions, must hold size() entries
+     * @return Number of matches; every item if the query has no letters or digits
+     */
+    public int search(CharSequence text, int[] out) {
+        query.setLength(0);
+        fold(text, query);
+
+        int tokens = 0;
+        int start = 0;
+        while (start < query.length()) {
+            int end = start;
+            while (end < query.length() && query.charAt(end) != ' ') {
+                end++;
+            }
+            matchToken(start, end - start, tokens == 0);
+            tokens++;
+            start = end + 1;
+        }
+
+        int count = 0;
+        if (tokens == 0) {
+            for (int i = 0; i < size; i++) {
+                out[count++] = i;
+            }
+            return count;
+        }
+        for (int i = 0; i < size; i++) {
+            if (marks[i] == generation && !substringOnly[i]) {
+                out[count++] = i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (marks[i] == generation && substringOnly[i]) {
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mark items that matched every earlier token and also match this one
+     */
+    private void matchToken(int start, int length, boolean first) {
+        int previous = generation;
+        int current = ++generation;
+
+        // Word prefix
+        for (int i = lowerBound(start, length); i < words.length && startsWith(words[i], start, length); i++) {
+            int item = wordItems[i];
+            if (marks[item] == current) {
+                continue;
+            }
+            if (first) {
+                marks[item] = current;
+                substringOnly[item] = false;
+            } else if (marks[item] == previous) {
+                marks[item] = current;
+            }
+        }
+
+        if (length < GRAM) {
+            return;
+        }
+
+        // Inside a word: walk the rarest trigram of the token, then verify
+        int best = -1;
+        for (int s = start; s + GRAM <= start + length; s++) {
+            int slot = Arrays.binarySearch(gramKeys, gramKey(query, s));
+            if (slot < 0) {
+                return; // Some trigram occurs nowhere
+            }
+            if (best < 0 || postingCount(slot) < postingCount(best)) {
+                best = slot;
+            }
+        }
+        for (int i = gramOffsets[best]; i < gramOffsets[best + 1]; i++) {
+            int item = postings[i];
+            boolean candidate = first ? marks[item] != current : marks[item] == previous;
+            if (candidate && contains(folded[item], start, length)) {
+                marks[item] = current;
+                substringOnly[item] = true;
+            }
+        }
+    }
+
+    private int postingCount(int slot) {
+        return gramOffsets[slot + 1] - gramOffsets[slot];
+    }
+
+    /**
+     * @return Index of the first word not smaller than the token
+     */
+    private int lowerBound(int start, int length) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(words[mid], start, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(String word, int start, int length) {
+        int n = Math.min(word.length(), length);
+        for (int i = 0; i < n; i++) {
+            int diff = word.charAt(i) - query.charAt(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return word.length() - length;
+    }
+
+    private boolean startsWith(String word, int start, int length) {
+        if (word.length() < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != query.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(String name, int start, int length) {
+        outer:
+        for (int offset = 0; offset + length <= name.length(); offset++) {
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(offset + i) != query.charAt(start + i)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static int countWords(String name) {
+        if (name.isEmpty()) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == ' ') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Trigram key, or -1 if the three characters cross a word boundary
+     */
+    private static int gramKey(CharSequence text, int start) {
+        int key = 0;
+        for (int i = start; i < start + GRAM; i++) {
+            char c = text.charAt(i);
+            int code;
+            if (c >= 'a' && c <= 'z') {
+                code = c - 'a' + 1;
+            } else if (c >= '0' && c <= '9') {
+                code = c - '0' + 27;
+            } else {
+                return -1;
+            }
+            key = key * ALPHABET + code;
+        }
+        return key;
+    }
+
+    // ---- Folding ----
+
+    // Latin-1 letters U+00C0 to U+00FF without their accents, '_' for none
+    private static final String LATIN1_FOLD =
+            "aaaaaaaceeeeiiiidnooooo_ouuuuyts" + "aaaaaaaceeeeiiiidnooooo_ouuuuyty";
+
+    // Devanagari U+0900 to U+097F; consonants carry no inherent vowel here
+    private static final String[] DEVANAGARI = new String[128];
+
+    static {
+        String[][] table = {
+                // Signs
+                {"ँ", "n"}, {"ं", "n"}, {"ः", "h"},
+                // Independent vowels
+                {"अ", "a"}, {"आ", "aa"}, {"इ", "i"}, {"ई", "ii"},
+                {"उ", "u"}, {"ऊ", "uu"}, {"ऋ", "ri"}, {"ऍ", "e"},
+                {"ए", "e"}, {"ऐ", "ai"}, {"ऑ", "o"}, {"ओ", "o"}, {"औ", "au"},
+                // Consonants
+                {"क", "k"}, {"ख", "kh"}, {"ग", "g"}, {"घ", "gh"}, {"ङ", "n"},
+                {"च", "ch"}, {"छ", "chh"}, {"ज", "j"}, {"झ", "jh"}, {"ञ", "n"},
+                {"ट", "t"}, {"ठ", "th"}, {"ड", "d"}, {"ढ", "dh"}, {"ण", "n"},
+                {"त", "t"}, {"थ", "th"}, {"द", "d"}, {"ध", "dh"}, {"न", "n"},
+                {"ऩ", "n"}, {"प", "p"}, {"फ", "ph"}, {"ब", "b"}, {"भ", "bh"},
+                {"म", "m"}, {"य", "y"}, {"र", "r"}, {"ऱ", "r"}, {"ल", "l"},
+                {"ळ", "l"}, {"ऴ", "l"}, {"व", "v"}, {"श", "sh"}, {"ष", "sh"},
+                {"स", "s"}, {"ह", "h"},
+                {"\u0958", "k"}, {"\u0959", "kh"}, {"\u095A", "g"}, {"\u095B", "j"}, {"\u095C", "r"},
+                {"\u095D", "rh"}, {"\u095E", "f"}, {"\u095F", "y"},
+                // Vowel signs
+                {"ा", "aa"}, {"ि", "i"}, {"ी", "ii"}, {"ु", "u"}, {"ू", "uu"},
+                {"ृ", "ri"}, {"ॅ", "e"}, {"े", "e"}, {"ै", "ai"}, {"ॉ", "o"},
+                {"ो", "o"}, {"ौ", "au"},
+                // Digits
+                {"०", "0"}, {"१", "1"}, {"२", "2"}, {"३", "3"}, {"४", "4"},
+                {"५", "5"}, {"६", "6"}, {"७", "7"}, {"८", "8"}, {"९", "9"},
+        };
+        for (String[] entry : table) {
+            DEVANAGARI[entry[0].charAt(0) - 0x0900] = entry[1];
+        }
+    }
+
+    private static boolean isDevanagariConsonant(char c) {
+        return (c >= 'क' && c <= 'ह') || (c >= 'क़' && c <= 'य़');
+    }
+
+    private static boolean isDevanagariVowelSign(char c) {
+        return c >= 'ा' && c <= 'ौ';
+    }
+
+    /**
+     * Fold text into lowercase Latin words separated by single spaces
+     * Only appends to the builder, so with enough capacity nothing is allocated.
+     */
+    static void fold(CharSequence text, StringBuilder out) {
+        // Inherent "a" of the last Devanagari consonant, written only if the word goes on
+        boolean pendingA = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c >= 'ऀ' && c <= 'ॿ') {
+                if (c == '्' || isDevanagariVowelSign(c)) {
+                    // Virama or vowel sign replaces the inherent vowel
+                    pendingA = false;
+                } else if (c != '़' && DEVANAGARI[c - 0x0900] != null && pendingA) {
+                    append(out, 'a');
+                    pendingA = false;
+                }
+                String latin = DEVANAGARI[c - 0x0900];
+                if (latin == null) {
+                    if (c == '।' || c == '॥') {
+                        append(out, ' ');
+                        pendingA = false;
+                    }
+                    continue; // Nukta and other marks
+                }
+                for (int j = 0; j < latin.length(); j++) {
+                    append(out, latin.charAt(j));
+                }
+                pendingA = isDevanagariConsonant(c);
+                continue;
+            }
+
+            // Word-final inherent vowel is silent
+            pendingA = false;
+
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            } else if (c >= 'À' && c <= 'ÿ') {
+                c = LATIN1_FOLD.charAt(c - 0x00C0);
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                append(out, c);
+            } else {
+                append(out, ' ');
+            }
+        }
+
+        // No trailing separator
+        int last = out.length() - 1;
+        if (last >= 0 && out.charAt(last) == ' ') {
+            out.setLength(last);
+        }
+    }
+
+    /**
+     * Append one folded character, merging common spelling variants
+     */
+    private static void append(StringBuilder out, char c) {
+        int length = out.length();
+        char previous = length > 0 ? out.charAt(length - 1) : ' ';
+
+        if (c == ' ' || c == '_') {
+            if (previous != ' ') {
+                out.append(' ');
+            }
+            return;
+        }
+        if (c == 'w') {
+            c = 'v';
+        }
+        if (c >= 'a' && c <= 'z') {
+            // Aspirates: bh/b, sh/s, kh/k ...
+            if (c == 'h' && isConsonant(previous)) {
+                return;
+            }
+            // Doubled letters: aa/a, ee/e, tt/t ...
+            if (c == previous) {
+                return;
+            }
+        }
+        out.append(c);
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'a' && c <= 'z' && c != 'a' && c != 'e' && c != 'i' && c != 'o' && c != 'u';
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Session Store
+ * Typed, in-memory view of the logged in user and the current area/ward
+ * selection. Preferences are parsed once, on a background thread at process
+ * start; after that reads are plain field accesses and writes update memory
+ * immediately and reach disk asynchronously through apply().
+ * Snapshots are immutable, so a reference can be held safely.
+ */
+public class SessionStore {
+
+    // Preference file and keys, kept unchanged so existing sessions survive updates
+    private static final String PREF_NAME = "ElectionSurveyPrefs";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_USER_NAME = "user_name";
+    private static final String KEY_USER_PHONE = "user_phone";
+    private static final String KEY_IS_LOGGED_IN = "is_logged_in";
+    private static final String KEY_AREA_ID = "area_id";
+    private static final String KEY_AREA_NAME = "area_name";
+    private static final String KEY_WARD_ID = "ward_id";
+    private static final String KEY_WARD_NAME = "ward_name";
+
+    private static final SessionStore INSTANCE = new SessionStore();
+
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private SharedPreferences prefs;
+    private volatile UserSession user;
+    private volatile Selection selection;
+
+    /**
+     * Logged in user
+     */
+    public static final class UserSession {
+        private final int userId;
+        private final String name;
+        private final String phone;
+        private final boolean loggedIn;
+
+        UserSession(int userId, String name, String phone, boolean loggedIn) {
+            this.userId = userId;
+            this.name = name;
+            this.phone = phone;
+            this.loggedIn = loggedIn;
+        }
+
+        /**
+         * @return User ID, -1 if nobody has logged in
+         */
+        public int getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return Display name, "User" if unknown
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public boolean isLoggedIn() {
+            return loggedIn;
+        }
+    }
+
+    /**
+     * Area and ward the interviewer is working in
+     */
+    public static final class Selection {
+        private final int areaId;
+        private final String areaName;
+        private final int wardId;
+        private final String wardName;
+
+        Selection(int areaId, String areaName, int wardId, String wardName) {
+            this.areaId = areaId;
+            this.areaName = areaName;
+            this.wardId = wardId;
+            this.wardName = wardName;
+        }
+
+        /**
+         * @return Area ID, -1 if none selected
+         */
+        public int getAreaId() {
+            return areaId;
+        }
+
+        /**
+         * @return Area name, empty if none selected
+         */
+        public String getAreaName() {
+            return areaName;
+        }
+
+        /**
+         * @return Ward ID, -1 if none selected
+         */
+        public int getWardId() {
+            return wardId;
+        }
+
+        /**
+         * @return Ward name, empty if none selected
+         */
+        public String getWardName() {
+            return wardName;
+        }
+    }
+
+    private SessionStore() {
+    }
+
+    /**
+     * Get the process-wide session
+     * @return Session store, reads wait for init() to finish loading
+     */
+    public static SessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start loading the session in the background, call once at process start
+     * @param context Application context
+     */
+    public void init(Context context) {
+        new Thread(() -> {
+            prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+            user = new UserSession(
+                    prefs.getInt(KEY_USER_ID, -1),
+                    prefs.getString(KEY_USER_NAME, "User"),
+                    prefs.getString(KEY_USER_PHONE, ""),
+                    prefs.getBoolean(KEY_IS_LOGGED_IN, false));
+            selection = new Selection(
+                    prefs.getInt(KEY_AREA_ID, -1),
+                    prefs.getString(KEY_AREA_NAME, ""),
+                    prefs.getInt(KEY_WARD_ID, -1),
+                    prefs.getString(KEY_WARD_NAME, ""));
+            loaded.countDown();
+        }, "session-load").start();
+    }
+
+    /**
+     * @return Current user snapshot
+     */
+    public UserSession getUser() {
+        awaitLoaded();
+        return user;
+    }
+
+    /**
+     * @return Current area/ward selection snapshot
+     */
+    public Selection getSelection() {
+        awaitLoaded();
+        return selection;
+    }
+
+    /**
+     * Record a successful login
+     * @param loggedIn User returned by the server
+     */
+    public void setUser(User loggedIn) {
+        awaitLoaded();
+        String name = loggedIn.getName() != null ? loggedIn.getName() : "User";
+        String phone = loggedIn.getPhone() != null ? loggedIn.getPhone() : "";
+        user = new UserSession(loggedIn.getId(), name, phone, true);
+        prefs.edit()
+                .putInt(KEY_USER_ID, loggedIn.getId())
+                .putString(KEY_USER_NAME, name)
+                .putString(KEY_USER_PHONE, phone)
+                .putBoolean(KEY_IS_LOGGED_IN, true)
+                .apply();
+    }
+
+    /**
+     * Select an area; the ward selection is cleared as it belonged to the old area
+     * @param area Selected area
+     */
+    public void selectArea(Area area) {
+        awaitLoaded();
+        selection = new Selection(area.getId(), area.getAreaName(), -1, "");
+        prefs.edit()
+                .putInt(KEY_AREA_ID, area.getId())
+                .putString(KEY_AREA_NAME, area.getAreaName())
+                .remove(KEY_WARD_ID)
+                .remove(KEY_WARD_NAME)
+                .apply();
+    }
+
+    /**
+     * Select a ward within the current area
+     * @param ward Selected ward
+     */
+    public void selectWard(Ward ward) {
+        awaitLoaded();
+        Selection current = selection;
+        selection = new Selection(current.areaId, current.areaName, ward.getId(), ward.getWardName());
+        prefs.edit()
+                .putInt(KEY_WARD_ID, ward.getId())
+                .putString(KEY_WARD_NAME, ward.getWardName())
+                .apply();
+    }
+
+    /**
+     * Block until init() has loaded the preferences, normally long done by first use
+     */
+    private void awaitLoaded() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.electionsurvey2;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.widget.TextView;
@@ -12,6 +11,7 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 
+import com.google.android.material.button.MaterialButton;
 import com.google.android.material.navigation.NavigationView;
 
 /**
@@ -23,9 +23,7 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
     private NavigationView navigationView;
     private Toolbar toolbar;
     private TextView tvUserEmail;
-
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-    private static final String KEY_USER_NAME = "user_name";
+    private MaterialButton btnDiagnostics;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,6 +49,10 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
         navigationView = findViewById(R.id.navigationView);
         toolbar = findViewById(R.id.toolbar);
         tvUserEmail = navigationView.getHeaderView(0).findViewById(R.id.tvUserEmail);
+        btnDiagnostics = findViewById(R.id.btnDiagnostics);
+
+        // Open network diagnostics
+        btnDiagnostics.setOnClickListener(v -> startActivity(new Intent(this, DiagnosticsActivity.class)));
     }
 
     /**
@@ -86,9 +88,7 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
      * Update user information in drawer header
      */
     private void updateUserInfo() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        String userName = prefs.getString(KEY_USER_NAME, "User");
-        tvUserEmail.setText(userName);
+        tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
     }
 
     /**
@@ -0,0 +1,149 @@
+package com.example.electionsurvey2;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skip Logic
+ * Branching rules of a questionnaire compiled into a dependency graph.
+ *
+ * A question with a show_if_option_id is reachable only when the question
+ * owning that option is reachable and the option was chosen. Rules may only
+ * point backwards, so every edge goes from a lower to a higher position and
+ * the graph cannot have cycles. Rules pointing at an unknown option or at a
+ * later question are dropped and the question is always asked.
+ *
+ * When an answer changes, only the questions that depend on it are
+ * re-evaluated, in position order, and the walk continues only through
+ * questions whose reachability actually flipped. Not thread-safe; used on
+ * the main thread with its AnswerSheet.
+ */
+public class SkipLogic {
+
+    private static final String TAG = "SkipLogic";
+    private static final int[] NONE = new int[0];
+
+    // Per question position: position of the controlling question or -1, and the option it needs
+    private final int[] controller;
+    private final int[] requiredOption;
+    // Per question position: positions of the questions it controls, ascending
+    private final int[][] dependents;
+    private final boolean hasRules;
+
+    // Scratch set reused by update()
+    private final BitSet dirty;
+
+    /**
+     * Compile the rules of a questionnaire
+     * @param questions Questions in display order
+     */
+    public SkipLogic(List<Question> questions) {
+        int count = questions.size();
+        controller = new int[count];
+        requiredOption = new int[count];
+        dirty = new BitSet(count);
+
+        Map<Integer, Integer> ownerByOption = new HashMap<>();
+        int[] dependentCount = new int[count];
+        boolean anyRule = false;
+
+        for (int i = 0; i < count; i++) {
+            Question question = questions.get(i);
+            controller[i] = -1;
+
+            Integer optionId = question.getShowIfOptionId();
+            if (optionId != null) {
+                // Owners are registered below, so only earlier questions can match
+                Integer owner = ownerByOption.get(optionId);
+                if (owner != null) {
+                    controller[i] = owner;
+                    requiredOption[i] = optionId;
+                    dependentCount[owner]++;
+                    anyRule = true;
+                } else {
+                    AppLog.w(TAG, "Question " + question.getId() + ": show_if_option_id " + optionId
+                            + " is not an option of an earlier question, always asked");
+                }
+            }
+
+            for (Option option : question.getOptions()) {
+                ownerByOption.put(option.getId(), i);
+            }
+        }
+        hasRules = anyRule;
+
+        dependents = new int[count][];
+        for (int i = 0; i < count; i++) {
+            dependents[i] = dependentCount[i] > 0 ? new int[dependentCount[i]] : NONE;
+            dependentCount[i] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            if (controller[i] != -1) {
+                dependents[controller[i]][dependentCount[controller[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return true if any question depends on an earlier answer
+     */
+    public boolean hasRules() {
+        return hasRules;
+    }
+
+    /**
+     * Evaluate every question from scratch, e.g. for a blank interview
+     * @param answers Answers by position, null when unanswered
+     * @param reachable Receives the reachable positions
+     */
+    public void evaluateAll(Answer[] answers, BitSet reachable) {
+        reachable.set(0, answers.length);
+        if (!hasRules) {
+            return;
+        }
+        // Controllers come first, so one pass in order sees them settled
+        for (int i = 0; i < answers.length; i++) {
+            reachable.set(i, evaluate(i, answers, reachable));
+        }
+    }
+
+    /**
+     * Re-evaluate the questions affected by a changed answer
+     * @param changed Position whose answer was saved or cleared
+     * @param answers Answers by position, null when unanswered
+     * @param reachable Reachable positions, updated in place
+     */
+    public void update(int changed, Answer[] answers, BitSet reachable) {
+        if (dependents[changed].length == 0) {
+            return;
+        }
+        mark(changed);
+
+        // Dependents always sit after their controller, so one forward scan settles everything
+        for (int i = dirty.nextSetBit(changed + 1); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            dirty.clear(i);
+            boolean now = evaluate(i, answers, reachable);
+            if (now != reachable.get(i)) {
+                reachable.set(i, now);
+                mark(i);
+            }
+        }
+    }
+
+    private void mark(int position) {
+        for (int dependent : dependents[position]) {
+            dirty.set(dependent);
+        }
+    }
+
+    private boolean evaluate(int position, Answer[] answers, BitSet reachable) {
+        int owner = controller[position];
+        if (owner == -1) {
+            return true;
+        }
+        Answer answer = answers[owner];
+        return reachable.get(owner) && answer != null && answer.isOptionSelected(requiredOption[position]);
+    }
+}
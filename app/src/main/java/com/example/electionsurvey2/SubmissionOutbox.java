@@ -0,0 +1,494 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+
+/**
+ * Submission Outbox
+ * Durable, append-only queue of completed surveys waiting to be uploaded.
+ * Every finished survey is written to disk here first. SyncScheduler plans
+ * when the entries are uploaded, so several interviews share one radio
+ * wake-up, and SyncJobService runs drain() in its windows until the server
+ * accepts them. Queued surveys are coalesced into gzip-compressed
+ * batch requests so an end-of-day sync costs a handful of round trips, and
+ * are sent in the compact SurveyPayloadCodec format when the server accepts it.
+ * Every entry carries a submission_id, so re-sending a survey the server
+ * already saved before a timeout is acknowledged instead of duplicated.
+ */
+public class SubmissionOutbox {
+
+    private static final String TAG = "SubmissionOutbox";
+
+    // Storage
+    private static final String OUTBOX_DIR = "outbox";
+    private static final String REJECTED_DIR = "outbox_rejected";
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Idempotency key the server dedupes uploads on
+    private static final String SUBMISSION_ID = "submission_id";
+
+    // Wire formats
+    private static final MediaType BINARY = MediaType.parse(SurveyPayloadCodec.CONTENT_TYPE);
+
+    // Batching, also the queue length at which SyncScheduler uploads without waiting
+    static final int MAX_BATCH_SIZE = 50;
+
+    // Upload results
+    private static final int RESULT_UPLOADED = 0;
+    private static final int RESULT_REJECTED = 1;
+    private static final int RESULT_RETRY = 2;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static volatile SubmissionOutbox instance;
+
+    private final Context context;
+    private final File outboxDir;
+    private final File rejectedDir;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Separate from the drainer so a queued survey never waits behind an upload
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    // Only touched on the drainer thread
+    private boolean batchUnsupported = false;
+    private boolean binaryUnsupported = false;
+
+    /**
+     * Callback for enqueueAsync(), invoked on the main thread
+     */
+    public interface EnqueueCallback {
+        void onQueued();
+        void onError(IOException e);
+    }
+
+    /**
+     * Callback for drain(), invoked on the drainer thread
+     */
+    public interface DrainCallback {
+        /**
+         * @param complete true if every entry was uploaded or parked as rejected,
+         *                 false if a transient failure left entries for later
+         */
+        void onDrained(boolean complete);
+    }
+
+    private SubmissionOutbox(Context context) {
+        this.context = context;
+        outboxDir = new File(context.getFilesDir(), OUTBOX_DIR);
+        rejectedDir = new File(context.getFilesDir(), REJECTED_DIR);
+        outboxDir.mkdirs();
+        rejectedDir.mkdirs();
+    }
+
+    /**
+     * Get the process-wide outbox instance
+     * @param context Any context, the application context is retained
+     * @return Outbox instance
+     */
+    public static SubmissionOutbox getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SubmissionOutbox.class) {
+                if (instance == null) {
+                    instance = new SubmissionOutbox(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Clean up after a crash and plan an upload of entries queued before the app was closed
+     * Connectivity is awaited by the scheduled job, not watched here.
+     */
+    public void start() {
+        executor.execute(() -> {
+            // Remove half-written entries left behind by a crash during enqueue
+            File[] leftovers = outboxDir.listFiles((dir, name) -> name.endsWith(TEMP_SUFFIX));
+            if (leftovers != null) {
+                for (File leftover : leftovers) {
+                    leftover.delete();
+                }
+            }
+            SyncScheduler.scheduleUpload(context, getPendingCount());
+        });
+    }
+
+    /**
+     * Durably append a completed survey to the outbox and plan an upload.
+     * The entry and the rename that commits it are fsynced before this method
+     * returns, so the survey survives a crash, process kill or power loss as
+     * soon as the call completes.
+     * @param payload Survey submission payload
+     * @throws IOException if the entry could not be written to storage
+     */
+    public void enqueue(JSONObject payload) throws IOException {
+        String name = String.format(Locale.US, "%013d-%05d",
+                System.currentTimeMillis(), sequence.getAndIncrement() % 100000);
+        File temp = new File(outboxDir, name + TEMP_SUFFIX);
+        File entry = new File(outboxDir, name + ENTRY_SUFFIX);
+
+        // Write to a temp file and rename so a torn write never looks like an entry
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(payload.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(entry)) {
+            temp.delete();
+            throw new IOException("Unable to commit outbox entry " + name);
+        }
+        // The rename is only durable once the directory itself is synced
+        syncDirectory(outboxDir);
+
+        SyncScheduler.scheduleUpload(context, getPendingCount());
+    }
+
+    /**
+     * Queue a completed survey without blocking the caller on the write and fsync
+     * The payload must not be modified afterwards.
+     * @param payload Survey submission payload
+     * @param callback Told once the entry is durable, or that it could not be written
+     */
+    public void enqueueAsync(JSONObject payload, EnqueueCallback callback) {
+        writer.execute(() -> {
+            try {
+                enqueue(payload);
+                MAIN_HANDLER.post(callback::onQueued);
+            } catch (IOException e) {
+                MAIN_HANDLER.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Number of surveys still waiting to be uploaded
+     * @return Pending entry count
+     */
+    public int getPendingCount() {
+        return listEntries().length;
+    }
+
+    /**
+     * Upload pending entries oldest first in the background, stopping at the
+     * first retryable failure; retrying later is up to the caller
+     * @param callback Told whether the outbox was emptied
+     */
+    public void drain(DrainCallback callback) {
+        executor.execute(() -> callback.onDrained(drainPass()));
+    }
+
+    /**
+     * Runs on the drainer thread
+     * @return false if a transient failure left entries behind
+     */
+    private boolean drainPass() {
+        File[] entries = listEntries();
+        int batchSize = batchUnsupported ? 1 : MAX_BATCH_SIZE;
+
+        for (int start = 0; start < entries.length; start += batchSize) {
+            int end = Math.min(start + batchSize, entries.length);
+            if (!uploadEntries(Arrays.copyOfRange(entries, start, end))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Upload a run of entries, as one batch request when there is more than one
+     * @return false if the drain should back off and retry later
+     */
+    private boolean uploadEntries(File[] entries) {
+        List<File> files = new ArrayList<>();
+        List<JSONObject> payloads = new ArrayList<>();
+        boolean deferred = false;
+        for (File entry : entries) {
+            JSONObject payload;
+            try {
+                payload = readEntry(entry);
+            } catch (IOException e) {
+                // Storage trouble, not a bad survey: leave it for the next drain
+                AppLog.w(TAG, "Unable to read outbox entry " + entry.getName(), e);
+                deferred = true;
+                continue;
+            }
+            if (payload != null) {
+                files.add(entry);
+                payloads.add(payload);
+            } else {
+                reject(entry);
+            }
+        }
+
+        if (files.size() > 1 && !batchUnsupported) {
+            int result = uploadBatch(files, payloads);
+            if (result != RESULT_REJECTED) {
+                return result == RESULT_UPLOADED && !deferred;
+            }
+            // Whole batch refused, upload one by one so only the bad surveys are parked
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            int result = upload(payloads.get(i));
+            if (result == RESULT_UPLOADED) {
+                files.get(i).delete();
+            } else if (result == RESULT_REJECTED) {
+                reject(files.get(i));
+            } else {
+                return false;
+            }
+        }
+        return !deferred;
+    }
+
+    /**
+     * Upload several entries in one gzip-compressed batch request and apply
+     * the per-survey results. The compact binary format is tried first; a
+     * server that refuses it is sent JSON and remembered as JSON-only.
+     * @return RESULT_UPLOADED once results are applied, RESULT_REJECTED if the
+     *         batch as a whole was refused, RESULT_RETRY on transient failure
+     */
+    private int uploadBatch(List<File> files, List<JSONObject> payloads) {
+        byte[] binary = null;
+        if (!binaryUnsupported) {
+            try {
+                binary = SurveyPayloadCodec.encodeBatch(payloads);
+            } catch (JSONException | IllegalArgumentException e) {
+                // Not representable in the binary format, send JSON instead
+            }
+        }
+
+        if (binary != null) {
+            int result = sendBatch(files, binary, BINARY);
+            if (result != RESULT_REJECTED || batchUnsupported) {
+                return result;
+            }
+            // Refused as a whole: possibly a server that only reads JSON
+        }
+
+        byte[] json;
+        try {
+            JSONObject batch = new JSONObject();
+            batch.put("surveys", new JSONArray(payloads));
+            json = batch.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            return RESULT_REJECTED;
+        }
+
+        int result = sendBatch(files, json, ApiService.JSON);
+        if (binary != null && result == RESULT_UPLOADED) {
+            binaryUnsupported = true;
+        }
+        return result;
+    }
+
+    /**
+     * Send one encoded batch and apply the per-survey results
+     * @return RESULT_RETRY if any survey failed for a reason other than its data
+     */
+    private int sendBatch(List<File> files, byte[] content, MediaType contentType) {
+        try (Response response = ApiService.postBytesSync(ApiService.SAVE_RESPONSES_BATCH, content, contentType, true)) {
+            if (response.code() == 404) {
+                // Older server without the batch endpoint
+                batchUnsupported = true;
+                return RESULT_REJECTED;
+            }
+
+            int result = classify(response.code());
+            if (result != RESULT_UPLOADED) {
+                return result;
+            }
+
+            JSONObject jsonResponse = new JSONObject(response.body().string());
+            JSONArray results = jsonResponse.getJSONObject("data").getJSONArray("results");
+            // Out-of-range or repeated indices are ignored, never trusted
+            boolean[] handled = new boolean[files.size()];
+            boolean retry = false;
+            for (int i = 0; i < results.length(); i++) {
+                JSONObject item = results.getJSONObject(i);
+                int index = item.getInt("index");
+                if (index < 0 || index >= files.size() || handled[index]) {
+                    AppLog.w(TAG, "Ignoring batch result for index %d", index);
+                    continue;
+                }
+                handled[index] = true;
+                File entry = files.get(index);
+                if (item.getBoolean("success")) {
+                    entry.delete();
+                } else if (!item.optBoolean("retryable", true)) {
+                    // Only a survey the server found invalid is parked
+                    reject(entry);
+                } else {
+                    retry = true;
+                }
+            }
+            for (boolean answered : handled) {
+                // A survey the server said nothing about stays queued
+                retry |= !answered;
+            }
+            return retry ? RESULT_RETRY : RESULT_UPLOADED;
+        } catch (IOException | JSONException e) {
+            return RESULT_RETRY;
+        }
+    }
+
+    /**
+     * Upload one entry to the server, binary first with JSON as the fallback
+     * @return One of RESULT_UPLOADED, RESULT_REJECTED or RESULT_RETRY
+     */
+    private int upload(JSONObject payload) {
+        byte[] binary = null;
+        if (!binaryUnsupported) {
+            try {
+                binary = SurveyPayloadCodec.encode(payload);
+            } catch (JSONException | IllegalArgumentException e) {
+                // Not representable in the binary format, send JSON instead
+            }
+        }
+
+        if (binary != null) {
+            int result = send(binary, BINARY);
+            if (result != RESULT_REJECTED) {
+                return result;
+            }
+        }
+
+        int result = send(payload.toString().getBytes(StandardCharsets.UTF_8), ApiService.JSON);
+        if (binary != null && result == RESULT_UPLOADED) {
+            binaryUnsupported = true;
+        }
+        return result;
+    }
+
+    /**
+     * Send one encoded survey
+     */
+    private int send(byte[] content, MediaType contentType) {
+        try (Response response = ApiService.postBytesSync(ApiService.SAVE_RESPONSES, content, contentType, false)) {
+            return classify(response.code());
+        } catch (IOException e) {
+            return RESULT_RETRY;
+        }
+    }
+
+    /**
+     * Map an HTTP status code to an upload result
+     */
+    private static int classify(int code) {
+        if (code >= 200 && code < 300) {
+            return RESULT_UPLOADED;
+        }
+        // 4xx means the payload itself is bad, except timeouts and throttling
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            return RESULT_REJECTED;
+        }
+        return RESULT_RETRY;
+    }
+
+    /**
+     * Keep a rejected survey on the device for support instead of retrying forever
+     */
+    private void reject(File entry) {
+        AppLog.w(TAG, "Survey refused by the server, kept as %s", entry.getName());
+        entry.renameTo(new File(rejectedDir, entry.getName()));
+    }
+
+    /**
+     * fsync a directory so renames inside it survive a power loss
+     */
+    private static void syncDirectory(File dir) {
+        FileDescriptor fd = null;
+        try {
+            fd = Os.open(dir.getPath(), OsConstants.O_RDONLY, 0);
+            Os.fsync(fd);
+        } catch (ErrnoException e) {
+            // Some file systems refuse to sync directories, the entry is still written
+            AppLog.w(TAG, "Unable to sync outbox directory", e);
+        } finally {
+            if (fd != null) {
+                try {
+                    Os.close(fd);
+                } catch (ErrnoException e) {
+                    // Nothing left to do
+                }
+            }
+        }
+    }
+
+    /**
+     * List committed entries in enqueue order
+     */
+    private File[] listEntries() {
+        File[] entries = outboxDir.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (entries == null) {
+            return new File[0];
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+
+    /**
+     * Read an entry back into its payload
+     * Entries queued before submission ids existed get one derived from the
+     * entry name, so it stays the same on every retry.
+     * @return Payload, or null if the entry does not decode and never will
+     * @throws IOException if the entry could not be read this time
+     */
+    private JSONObject readEntry(File entry) throws IOException {
+        byte[] data = new byte[(int) entry.length()];
+        try (FileInputStream in = new FileInputStream(entry)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new EOFException("Short read of " + offset + " of " + data.length + " bytes");
+                }
+                offset += read;
+            }
+        }
+
+        try {
+            JSONObject payload = new JSONObject(new String(data, StandardCharsets.UTF_8));
+            if (!payload.has(SUBMISSION_ID)) {
+                payload.put(SUBMISSION_ID,
+                        UUID.nameUUIDFromBytes(entry.getName().getBytes(StandardCharsets.UTF_8)).toString());
+            }
+            return payload;
+        } catch (JSONException e) {
+            AppLog.w(TAG, "Corrupt outbox entry " + entry.getName(), e);
+            return null;
+        }
+    }
+}
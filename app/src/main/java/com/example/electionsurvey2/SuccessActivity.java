@@ -8,7 +8,6 @@ import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
 
-import android.content.SharedPreferences;
 import android.view.MenuItem;
 import android.widget.TextView;
 
@@ -36,8 +35,6 @@ public class SuccessActivity extends AppCompatActivity implements NavigationView
     private CardView successIcon;
     private MaterialButton btnBackToHome, btnExit;
 
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -114,9 +111,7 @@ public class SuccessActivity extends AppCompatActivity implements NavigationView
      */
     private void updateUserInfo() {
         if (tvUserEmail != null) {
-            SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-            String userName = prefs.getString("user_name", "User");
-            tvUserEmail.setText(userName);
+            tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
         }
     }
 
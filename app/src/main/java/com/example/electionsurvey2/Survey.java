@@ -0,0 +1,62 @@
+package com.example.electionsurvey2;
+
+/**
+ * Survey Model Class
+ * One questionnaire of the survey catalog
+ */
+public class Survey {
+
+    // Survey used by servers that predate the catalog
+    public static final int DEFAULT_ID = 1;
+
+    // Version of a survey whose questions are not fingerprinted
+    public static final long VERSION_UNKNOWN = -1;
+
+    private final int id;
+    private final String title;
+    private final String description;
+    private final int questionCount;
+    private final long version;
+
+    /**
+     * Constructor
+     * @param id Survey ID from database
+     * @param title Title shown to the interviewer, null for the default survey of an older server
+     * @param description Short description, may be null
+     * @param questionCount Number of questions
+     * @param version Fingerprint of the questions and options, changes whenever they do
+     */
+    public Survey(int id, String title, String description, int questionCount, long version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.questionCount = questionCount;
+        this.version = version;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return Description, or null if there is none
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    /**
+     * @return Question version, VERSION_UNKNOWN if not known
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -2,19 +2,14 @@ package com.example.electionsurvey2;
 
 import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.Color;
 import android.os.Bundle;
-import android.text.InputFilter;
-import android.text.InputType;
-import android.text.Spanned;
 import android.view.View;
 import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
-import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -37,11 +32,9 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
+import java.util.UUID;
 
 /**
  * Survey Activity
@@ -49,32 +42,42 @@ import okhttp3.Response;
  */
 public class SurveyActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
 
+    private static final String TAG = "SurveyActivity";
+
     // UI Components
     private DrawerLayout drawerLayout;
     private NavigationView navigationView;
     private Toolbar toolbar;
     private ProgressBar progressBar;
     private TextView tvQuestionNumber, tvQuestionText;
+    private ScrollView scrollView;
     private LinearLayout answerContainer;
     private MaterialButton btnNext, btnSubmit;
     private TextView tvUserEmail;
 
     // Data
     private List<Question> questionList;
-    private List<Answer> answerList;
+    private AnswerSheet answerSheet;
     private int currentQuestionIndex = 0;
 
-    // Current question UI elements
+    // Crash-safe record of the interview in progress
+    private AnswerJournal answerJournal;
+
+    // Current question UI elements, borrowed from the widget pool
+    private AnswerWidgetPool widgetPool;
     private EditText currentEditText;
     private RadioGroup currentRadioGroup;
     private List<CheckBox> currentCheckBoxes;
 
     // User data
     private int userId, areaId, wardId;
-    private static final int SURVEY_ID = 1;
 
-    // SharedPreferences
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
+    // Survey picked on the ward screen
+    private int surveyId;
+    private long surveyVersion;
+
+    // Requests whose results are only shown on this screen
+    private final RequestScope requestScope = new RequestScope(TAG);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -91,12 +94,12 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
         // Update user info in drawer header
         updateUserInfo();
 
-        // Get user data from SharedPreferences
+        // Get user data from the session and the survey from the intent
         loadUserData();
+        answerJournal = new AnswerJournal(this, userId, surveyId, areaId, wardId);
 
         // Initialize lists
         questionList = new ArrayList<>();
-        answerList = new ArrayList<>();
 
         // Load survey questions from API
         loadSurveyQuestions();
@@ -115,12 +118,14 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
         progressBar = findViewById(R.id.progressBar);
         tvQuestionNumber = findViewById(R.id.tvQuestionNumber);
         tvQuestionText = findViewById(R.id.tvQuestionText);
+        scrollView = findViewById(R.id.scrollView);
         answerContainer = findViewById(R.id.answerContainer);
         btnNext = findViewById(R.id.btnNext);
         btnSubmit = findViewById(R.id.btnSubmit);
         tvUserEmail = navigationView.getHeaderView(0).findViewById(R.id.tvUserEmail);
 
-        currentCheckBoxes = new ArrayList<>();
+        widgetPool = new AnswerWidgetPool(this, answerContainer);
+        currentCheckBoxes = Collections.emptyList();
     }
 
     /**
@@ -156,19 +161,24 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
      * Update user information in drawer header
      */
     private void updateUserInfo() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        String userName = prefs.getString("user_name", "User");
-        tvUserEmail.setText(userName);
+        tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
     }
 
     /**
-     * Load user data from SharedPreferences
+     * Load user data from the session and the chosen survey from the intent
      */
     private void loadUserData() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        userId = prefs.getInt("user_id", -1);
-        areaId = prefs.getInt("area_id", -1);
-        wardId = prefs.getInt("ward_id", -1);
+        SessionStore.Selection selection = SessionStore.getInstance().getSelection();
+        userId = SessionStore.getInstance().getUser().getUserId();
+        areaId = selection.getAreaId();
+        wardId = selection.getWardId();
+
+        surveyId = getIntent().getIntExtra("survey_id", Survey.DEFAULT_ID);
+        surveyVersion = getIntent().getLongExtra("survey_version", Survey.VERSION_UNKNOWN);
+        String surveyTitle = getIntent().getStringExtra("survey_title");
+        if (surveyTitle != null && getSupportActionBar() != null) {
+            getSupportActionBar().setTitle(surveyTitle);
+        }
     }
 
     /**
@@ -185,101 +195,91 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
     private void loadSurveyQuestions() {
         showLoading(true);
 
-        String endpoint = ApiService.SURVEY_QUESTIONS + SURVEY_ID + "/questions";
-
-        ApiService.get(endpoint, new Callback() {
+        // Downloaded on first use, then served from the device until the survey version changes
+        SurveyRepository.getInstance().getQuestions(surveyId, surveyVersion, requestScope, new ApiService.DataCallback<List<Question>>() {
             @Override
-            public void onFailure(Call call, IOException e) {
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    Toast.makeText(SurveyActivity.this,
-                            "Unable to connect to server",
-                            Toast.LENGTH_LONG).show();
-                });
+            public void onSuccess(List<Question> questions) {
+                showLoading(false);
+                handleQuestionsResponse(questions);
             }
 
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                final String responseBody = response.body().string();
-
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    parseQuestions(responseBody);
-                });
+            public void onError(String error) {
+                showLoading(false);
+                Toast.makeText(SurveyActivity.this, error, Toast.LENGTH_LONG).show();
             }
         });
     }
 
     /**
-     * Parse questions from JSON response
+     * Handle decoded questions from API
+     * @param questions Questions with their options
      */
-    private void parseQuestions(String responseBody) {
-        try {
-            // Log the raw response for debugging
-            System.out.println("Survey API Response: " + responseBody);
-            
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            boolean success = jsonResponse.getBoolean("success");
-
-            if (success) {
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                questionList.clear();
-
-                for (int i = 0; i < dataArray.length(); i++) {
-                    try {
-                        JSONObject questionJson = dataArray.getJSONObject(i);
-                        
-                        int id = questionJson.getInt("id");
-                        String questionText = questionJson.getString("question_text");
-                        String type = questionJson.getString("type");
-
-                        // Parse options - handle empty or missing options array
-                        List<Option> options = new ArrayList<>();
-                        if (questionJson.has("options")) {
-                            JSONArray optionsArray = questionJson.getJSONArray("options");
-                            for (int j = 0; j < optionsArray.length(); j++) {
-                                JSONObject optionJson = optionsArray.getJSONObject(j);
-                                int optionId = optionJson.getInt("id");
-                                String optionText = optionJson.getString("option_text");
-                                options.add(new Option(optionId, optionText));
-                            }
-                        }
-                        // If options key is missing, options list remains empty (for text questions)
-
-                        Question question = new Question(id, questionText, type, options);
-                        questionList.add(question);
-                        
-                    } catch (JSONException e) {
-                        // Log error for this specific question but continue parsing others
-                        System.err.println("Error parsing question " + i + ": " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                }
+    private void handleQuestionsResponse(List<Question> questions) {
+        questionList.clear();
+        questionList.addAll(questions);
 
-                // Display first question
-                if (!questionList.isEmpty()) {
-                    displayQuestion(0);
-                } else {
-                    Toast.makeText(this, "No questions available", Toast.LENGTH_LONG).show();
-                }
+        if (questionList.isEmpty()) {
+            Toast.makeText(this, "No questions available", Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        // Answers are indexed by question position
+        answerSheet = new AnswerSheet(questionList);
+
+        // Build all answer widgets now so moving between questions allocates nothing
+        widgetPool.prepare(questionList);
 
+        // Resume an interrupted interview, or display first question
+        answerJournal.restore(requestScope, restored -> {
+            if (restored != null) {
+                resumeInterview(restored);
             } else {
-                String message = jsonResponse.optString("message", "Failed to load questions");
-                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                displayQuestion(0);
             }
+        });
+    }
 
-        } catch (JSONException e) {
-            // More detailed error message
-            String errorMsg = "Error parsing questions: " + e.getMessage();
-            System.err.println(errorMsg);
-            e.printStackTrace();
-            Toast.makeText(this, errorMsg, Toast.LENGTH_LONG).show();
-        } catch (Exception e) {
-            // Catch any other unexpected errors
-            String errorMsg = "Unexpected error: " + e.getMessage();
-            System.err.println(errorMsg);
-            e.printStackTrace();
-            Toast.makeText(this, errorMsg, Toast.LENGTH_LONG).show();
+    /**
+     * Restore answers and position from the journal of an interrupted interview
+     * @param restored Replayed journal
+     */
+    private void resumeInterview(AnswerJournal.Restored restored) {
+        // Ignore answers to questions that no longer exist
+        for (Answer answer : restored.getAnswers()) {
+            int index = answerSheet.indexOf(answer.getQuestionId());
+            if (index != -1) {
+                answerSheet.put(index, answer);
+            }
+        }
+
+        // The saved position may have been skipped under the restored answers
+        int index = Math.min(restored.getNextIndex(), questionList.size() - 1);
+        if (!answerSheet.isReachable(index)) {
+            int first = answerSheet.firstUnanswered();
+            index = first != -1 ? first : answerSheet.nextReachable(-1);
+        }
+        displayQuestion(index);
+        Toast.makeText(this, "Resumed interview in progress", Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Show a previously saved answer in the current question's input
+     */
+    private void fillSavedAnswer(int index) {
+        Answer saved = answerSheet.get(index);
+        if (saved == null) {
+            return;
+        }
+
+        if (currentEditText != null && saved.getAnswerText() != null) {
+            currentEditText.setText(saved.getAnswerText());
+        } else if (currentRadioGroup != null && saved.getSelectedOptionId() != null) {
+            currentRadioGroup.check(saved.getSelectedOptionId());
+        } else if (saved.getSelectedOptionIds() != null) {
+            for (CheckBox checkBox : currentCheckBoxes) {
+                checkBox.setChecked(saved.isOptionSelected(checkBox.getId()));
+            }
         }
     }
 
@@ -294,19 +294,20 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
         currentQuestionIndex = index;
         Question question = questionList.get(index);
 
-        // Update question number
-        tvQuestionNumber.setText("Question " + (index + 1) + " of " + questionList.size());
+        // Update question number, counting only the questions this respondent is asked
+        tvQuestionNumber.setText("Question " + answerSheet.getReachableNumber(index)
+                + " of " + answerSheet.getReachableCount());
 
         // Update question text
         tvQuestionText.setText(question.getQuestionText());
 
-        // Clear previous answer UI
-        answerContainer.removeAllViews();
+        // Hide previous answer UI, the widgets are reused
+        widgetPool.hideAll();
         currentEditText = null;
         currentRadioGroup = null;
-        currentCheckBoxes.clear();
+        currentCheckBoxes = Collections.emptyList();
 
-        // Create dynamic UI based on question type
+        // Bind answer UI based on question type
         switch (question.getType()) {
             case "text":
                 createTextInput(question);
@@ -318,9 +319,10 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
                 createMultipleChoice(question.getOptions());
                 break;
         }
+        fillSavedAnswer(index);
 
         // Show/hide buttons
-        if (index == questionList.size() - 1) {
+        if (answerSheet.nextReachable(index) == -1) {
             btnNext.setVisibility(View.GONE);
             btnSubmit.setVisibility(View.VISIBLE);
         } else {
@@ -330,153 +332,42 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
     }
 
     /**
-     * Create text input for text questions
-     * Applies input restrictions based on question content (name = alphabets only, age = numbers only)
+     * Show the pooled text input, configured by the question's precompiled InputSpec
      */
     private void createTextInput(Question question) {
-        currentEditText = new EditText(this);
-        currentEditText.setLayoutParams(new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.MATCH_PARENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT
-        ));
-        currentEditText.setPadding(16, 16, 16, 16);
-        currentEditText.setBackgroundResource(android.R.drawable.edit_text);
-        currentEditText.setTextSize(16);
-
-        // Get question text in lowercase for checking
-        String questionText = question.getQuestionText().toLowerCase();
-
-        // Check if question is asking for name
-        if (questionText.contains("name") || questionText.contains("full name")) {
-            // Name field - only alphabets and spaces allowed
-            currentEditText.setHint("Enter your name");
-            currentEditText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_WORDS);
-            // Filter to allow only alphabets and spaces
-            currentEditText.setFilters(new InputFilter[]{
-                new InputFilter() {
-                    @Override
-                    public CharSequence filter(CharSequence source, int start, int end,
-                                               Spanned dest, int dstart, int dend) {
-                        for (int i = start; i < end; i++) {
-                            char c = source.charAt(i);
-                            // Allow alphabets (A-Z, a-z) and spaces
-                            if (!Character.isLetter(c) && c != ' ') {
-                                return "";
-                            }
-                        }
-                        return null; // Accept the input
-                    }
-                }
-            });
-        }
-        // Check if question is asking for age
-        else if (questionText.contains("age")) {
-            // Age field - only numbers allowed
-            currentEditText.setHint("Enter your age");
-            currentEditText.setInputType(InputType.TYPE_CLASS_NUMBER);
-            // Filter to allow only digits
-            currentEditText.setFilters(new InputFilter[]{
-                new InputFilter() {
-                    @Override
-                    public CharSequence filter(CharSequence source, int start, int end,
-                                               Spanned dest, int dstart, int dend) {
-                        for (int i = start; i < end; i++) {
-                            char c = source.charAt(i);
-                            // Allow only digits (0-9)
-                            if (!Character.isDigit(c)) {
-                                return "";
-                            }
-                        }
-                        return null; // Accept the input
-                    }
-                }
-            });
-        }
-        // Check if question is asking for mobile/phone number
-        else if (questionText.contains("mobile") || questionText.contains("phone") || 
-                 questionText.contains("contact") || (questionText.contains("number") && 
-                 (questionText.contains("mobile") || questionText.contains("phone") || 
-                  questionText.contains("contact")))) {
-            // Mobile/Phone number field - only numbers allowed, max 10 digits
-            currentEditText.setHint("Enter mobile number (10 digits)");
-            currentEditText.setInputType(InputType.TYPE_CLASS_PHONE);
-            // Filter to allow only digits and limit to 10 digits
-            currentEditText.setFilters(new InputFilter[]{
-                new InputFilter.LengthFilter(10), // Maximum 10 digits
-                new InputFilter() {
-                    @Override
-                    public CharSequence filter(CharSequence source, int start, int end,
-                                               Spanned dest, int dstart, int dend) {
-                        for (int i = start; i < end; i++) {
-                            char c = source.charAt(i);
-                            // Allow only digits (0-9)
-                            if (!Character.isDigit(c)) {
-                                return "";
-                            }
-                        }
-                        return null; // Accept the input
-                    }
-                }
-            });
-        }
-        // Default text input for other questions
-        else {
-            currentEditText.setHint("Enter your answer here");
-            currentEditText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_SENTENCES);
-        }
-
-        answerContainer.addView(currentEditText);
+        currentEditText = widgetPool.bindText(question.getInputSpec());
     }
 
     /**
-     * Create radio buttons for single choice questions
+     * Show pooled radio buttons for single choice questions
      */
     private void createSingleChoice(List<Option> options) {
-        currentRadioGroup = new RadioGroup(this);
-        currentRadioGroup.setOrientation(RadioGroup.VERTICAL);
-        currentRadioGroup.setLayoutParams(new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.MATCH_PARENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT
-        ));
-
-        for (Option option : options) {
-            RadioButton radioButton = new RadioButton(this);
-            radioButton.setId(option.getId());
-            radioButton.setText(option.getOptionText());
-            radioButton.setTextSize(16);
-            radioButton.setPadding(16, 16, 16, 16);
-            radioButton.setTextColor(Color.BLACK);
-
-            currentRadioGroup.addView(radioButton);
-        }
-
-        answerContainer.addView(currentRadioGroup);
+        currentRadioGroup = widgetPool.bindSingle(options);
     }
 
     /**
-     * Create checkboxes for multiple choice questions
+     * Show pooled checkboxes for multiple choice questions
      */
     private void createMultipleChoice(List<Option> options) {
-        for (Option option : options) {
-            CheckBox checkBox = new CheckBox(this);
-            checkBox.setId(option.getId());
-            checkBox.setText(option.getOptionText());
-            checkBox.setTextSize(16);
-            checkBox.setPadding(16, 16, 16, 16);
-            checkBox.setTextColor(Color.BLACK);
-
-            currentCheckBoxes.add(checkBox);
-            answerContainer.addView(checkBox);
-        }
+        currentCheckBoxes = widgetPool.bindMultiple(options);
     }
 
     /**
      * Handle Next button click
      */
     private void handleNext() {
-        if (saveCurrentAnswer()) {
-            // Move to next question
-            displayQuestion(currentQuestionIndex + 1);
+        if (!saveCurrentAnswer()) {
+            return;
+        }
+
+        // The answer just saved may have skipped every remaining question
+        int next = answerSheet.nextReachable(currentQuestionIndex);
+        if (next != -1) {
+            displayQuestion(next);
+        } else {
+            btnNext.setVisibility(View.GONE);
+            btnSubmit.setVisibility(View.VISIBLE);
+            confirmSubmit();
         }
     }
 
@@ -496,26 +387,13 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
                     return false;
                 }
                 
-                // Validate mobile number - must be exactly 10 digits
-                String questionText = currentQuestion.getQuestionText().toLowerCase();
-                if (questionText.contains("mobile") || questionText.contains("phone") || 
-                    questionText.contains("contact") || (questionText.contains("number") && 
-                    (questionText.contains("mobile") || questionText.contains("phone") || 
-                     questionText.contains("contact")))) {
-                    // Check if it's exactly 10 digits
-                    if (text.length() != 10) {
-                        Toast.makeText(this, "Mobile number must be exactly 10 digits", Toast.LENGTH_SHORT).show();
-                        return false;
-                    }
-                    // Double check all characters are digits
-                    for (char c : text.toCharArray()) {
-                        if (!Character.isDigit(c)) {
-                            Toast.makeText(this, "Mobile number must contain only digits", Toast.LENGTH_SHORT).show();
-                            return false;
-                        }
-                    }
+                // Kind-specific checks, e.g. mobile number must be exactly 10 digits
+                String error = currentQuestion.getInputSpec().validate(text);
+                if (error != null) {
+                    Toast.makeText(this, error, Toast.LENGTH_SHORT).show();
+                    return false;
                 }
-                
+
                 answer = new Answer(currentQuestion.getId(), text);
                 break;
 
@@ -529,30 +407,34 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
                 break;
 
             case "multiple":
-                List<Integer> selectedIds = new ArrayList<>();
+                int checkedCount = 0;
                 for (CheckBox checkBox : currentCheckBoxes) {
                     if (checkBox.isChecked()) {
-                        selectedIds.add(checkBox.getId());
+                        checkedCount++;
                     }
                 }
-                if (selectedIds.isEmpty()) {
+                if (checkedCount == 0) {
                     Toast.makeText(this, "Please select at least one option", Toast.LENGTH_SHORT).show();
                     return false;
                 }
+                int[] selectedIds = new int[checkedCount];
+                int next = 0;
+                for (CheckBox checkBox : currentCheckBoxes) {
+                    if (checkBox.isChecked()) {
+                        selectedIds[next++] = checkBox.getId();
+                    }
+                }
                 answer = new Answer(currentQuestion.getId(), selectedIds);
                 break;
         }
 
-        // Add or update answer in list
+        // Add or replace the answer for this question
         if (answer != null) {
-            // Remove existing answer for this question if any
-            for (int i = 0; i < answerList.size(); i++) {
-                if (answerList.get(i).getQuestionId() == currentQuestion.getId()) {
-                    answerList.remove(i);
-                    break;
-                }
-            }
-            answerList.add(answer);
+            answerSheet.put(currentQuestionIndex, answer);
+
+            // Journal it so the interview survives a crash or the app being killed
+            int next = answerSheet.nextReachable(currentQuestionIndex);
+            answerJournal.append(answer, next != -1 ? next : currentQuestionIndex);
             return true;
         }
 
@@ -566,14 +448,23 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
         if (!saveCurrentAnswer()) {
             return;
         }
+        confirmSubmit();
+    }
 
-        // Validate that all questions are answered
-        if (answerList.size() < questionList.size()) {
-            int unanswered = questionList.size() - answerList.size();
+    /**
+     * Check every question asked is answered, then confirm submission
+     */
+    private void confirmSubmit() {
+        // Validate that all reachable questions are answered; skipped ones do not count
+        if (!answerSheet.isComplete()) {
+            int unanswered = answerSheet.getUnansweredCount();
+            int first = answerSheet.firstUnanswered();
             new AlertDialog.Builder(this)
                     .setTitle("Incomplete Survey")
                     .setMessage("You have " + unanswered + " unanswered question(s). Please answer all questions before submitting.")
-                    .setPositiveButton("OK", null)
+                    .setPositiveButton("Go to question " + answerSheet.getReachableNumber(first),
+                            (dialog, which) -> displayQuestion(first))
+                    .setNegativeButton("Cancel", null)
                     .show();
             return;
         }
@@ -596,14 +487,16 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
         try {
             // Build JSON payload
             JSONObject payload = new JSONObject();
+            // Idempotency key: every retry of this upload carries the same id, so the server saves it once
+            payload.put("submission_id", UUID.randomUUID().toString());
             payload.put("user_id", userId);
-            payload.put("survey_id", SURVEY_ID);
+            payload.put("survey_id", surveyId);
             payload.put("area_id", areaId);
             payload.put("ward_id", wardId);
 
             // Build answers array
             JSONArray answersArray = new JSONArray();
-            for (Answer answer : answerList) {
+            for (Answer answer : answerSheet.getAnswers()) {
                 JSONObject answerJson = new JSONObject();
                 answerJson.put("question_id", answer.getQuestionId());
 
@@ -618,7 +511,7 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
                     // Don't include answer_text at all for option answers
                 }
                 // For multiple choice answers
-                else if (answer.getSelectedOptionIds() != null && !answer.getSelectedOptionIds().isEmpty()) {
+                else if (answer.getSelectedOptionIds() != null && answer.getSelectedOptionIds().length > 0) {
                     JSONArray idsArray = new JSONArray();
                     for (int id : answer.getSelectedOptionIds()) {
                         idsArray.put(id);
@@ -628,53 +521,19 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
                 }
                 // Fallback - should not happen, but log it
                 else {
-                    System.err.println("Warning: Answer for question " + answer.getQuestionId() + " has no valid data");
+                    AppLog.w(TAG, "Answer for question %d has no valid data", answer.getQuestionId());
                     continue; // Skip this answer
                 }
 
                 answersArray.put(answerJson);
             }
-            
-            // Log the payload for debugging
-            System.out.println("Submitting survey with " + answersArray.length() + " answers");
-            System.out.println("Payload JSON: " + payload.toString());
-            
-            // Log each answer for debugging
-            for (int i = 0; i < answersArray.length(); i++) {
-                try {
-                    JSONObject ans = answersArray.getJSONObject(i);
-                    System.out.println("Answer " + (i + 1) + ": question_id=" + ans.optInt("question_id") + 
-                                     ", answer_text=" + ans.optString("answer_text", "NOT_SET") + 
-                                     ", selected_option_id=" + ans.optInt("selected_option_id", -999) + 
-                                     ", selected_option_ids=" + (ans.has("selected_option_ids") ? ans.getJSONArray("selected_option_ids").toString() : "NOT_SET"));
-                } catch (Exception e) {
-                    System.err.println("Error logging answer " + i + ": " + e.getMessage());
-                }
-            }
             payload.put("answers", answersArray);
 
-            // Send POST request
-            ApiService.post(ApiService.SAVE_RESPONSES, payload, new Callback() {
-                @Override
-                public void onFailure(Call call, IOException e) {
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        Toast.makeText(SurveyActivity.this,
-                                "Unable to connect to server",
-                                Toast.LENGTH_LONG).show();
-                    });
-                }
-
-                @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    final String responseBody = response.body().string();
+            // Respondent data, so debug builds only; formatted on the log thread
+            AppLog.d(TAG, "Submitting survey with %d answers: %s", answersArray.length(), payload);
 
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        handleSubmitResponse(responseBody);
-                    });
-                }
-            });
+            // Queue the survey in the background; the outbox uploads it later
+            queueSubmission(payload);
 
         } catch (JSONException e) {
             showLoading(false);
@@ -683,35 +542,76 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
     }
 
     /**
-     * Handle submit response from server
+     * Write a finished survey to the outbox off the main thread
+     * The journal is only cleared once the outbox entry is on disk, so the
+     * interview always survives a crash in one place or the other. On failure
+     * the payload is still in memory and the interviewer can retry.
+     * @param payload Survey submission payload
      */
-    private void handleSubmitResponse(String responseBody) {
-        try {
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            boolean success = jsonResponse.getBoolean("success");
-
-            if (success) {
-                // Get area data from SharedPreferences
-                SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-                int areaId = prefs.getInt("area_id", -1);
-                String areaName = prefs.getString("area_name", "");
-                
-                // Navigate to Ward Selection Activity
-                Intent intent = new Intent(SurveyActivity.this, WardSelectionActivity.class);
-                intent.putExtra("area_id", areaId);
-                intent.putExtra("area_name", areaName);
-                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                startActivity(intent);
-                overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
-                finish();
-            } else {
-                String message = jsonResponse.optString("message", "Failed to submit survey");
-                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+    private void queueSubmission(JSONObject payload) {
+        SubmissionOutbox.getInstance(this).enqueueAsync(payload, new SubmissionOutbox.EnqueueCallback() {
+            @Override
+            public void onQueued() {
+                answerJournal.clear();
+                Toast.makeText(getApplicationContext(),
+                        "Survey saved. Ready for the next respondent.", Toast.LENGTH_SHORT).show();
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+
+                // Same ward, same questionnaire: start the next interview right here
+                showLoading(false);
+                startNextRespondent();
             }
 
-        } catch (JSONException e) {
-            Toast.makeText(this, "Error parsing response", Toast.LENGTH_SHORT).show();
-        }
+            @Override
+            public void onError(IOException e) {
+                // Journal kept: the interview is restored on the next launch if this is abandoned
+                showLoading(false);
+                if (isFinishing() || isDestroyed()) {
+                    Toast.makeText(getApplicationContext(), "Unable to save survey on device", Toast.LENGTH_LONG).show();
+                    return;
+                }
+                new AlertDialog.Builder(SurveyActivity.this)
+                        .setTitle("Survey Not Saved")
+                        .setMessage("This survey could not be saved on this device.")
+                        .setPositiveButton("Retry", (dialog, which) -> {
+                            showLoading(true);
+                            queueSubmission(payload);
+                        })
+                        // Answers stay on screen, Submit tries again
+                        .setNegativeButton("Cancel", null)
+                        .setCancelable(false)
+                        .show();
+            }
+        });
+    }
+
+    /**
+     * Reset the interview in place for the next respondent in the same ward
+     * Questions, answer widgets and the session stay as they are, so this
+     * makes no network calls and no new views.
+     */
+    private void startNextRespondent() {
+        answerSheet.clear();
+
+        scrollView.scrollTo(0, 0);
+        displayQuestion(0);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Make sure the last answers are on disk before the app can be killed
+        answerJournal.flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // A questionnaire nobody else is waiting for stops downloading
+        requestScope.cancel();
+        answerJournal.close();
     }
 
     /**
@@ -758,7 +658,10 @@ public class SurveyActivity extends AppCompatActivity implements NavigationView.
             new AlertDialog.Builder(this)
                     .setTitle("Exit Survey")
                     .setMessage("Are you sure you want to exit? Your progress will be lost.")
-                    .setPositiveButton("Exit", (dialog, which) -> super.onBackPressed())
+                    .setPositiveButton("Exit", (dialog, which) -> {
+                        answerJournal.clear();
+                        super.onBackPressed();
+                    })
                     .setNegativeButton("Stay", null)
                     .show();
         }
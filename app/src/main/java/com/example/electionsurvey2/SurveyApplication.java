@@ -0,0 +1,36 @@
+package com.example.electionsurvey2;
+
+import android.app.Application;
+
+/**
+ * Survey Application
+ * Process-wide setup that must outlive individual activities
+ */
+public class SurveyApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Logging first, so everything after it can log
+        AppLog.init(this);
+
+        // Parse the saved session in the background before the first screen needs it
+        SessionStore.getInstance().init(this);
+
+        // Restore network statistics collected in earlier sessions
+        NetworkMetrics.getInstance().init(this);
+
+        // Network layer needs the cache directory before the first request
+        ApiService.init(this);
+
+        // Reference data is read from the device first, then refreshed
+        SurveyRepository.getInstance().init(this);
+
+        // Plan uploads of surveys queued before the app was closed
+        SubmissionOutbox.getInstance(this).start();
+
+        // Keep reference data fresh in the background, in battery-friendly windows
+        SyncScheduler.scheduleRefresh(this);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.electionsurvey2;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Survey Payload Codec
+ * Compact binary encoding of survey submissions, sent with
+ * Content-Type application/x-survey-responses instead of JSON.
+ *
+ * Layout (all integers are unsigned LEB128 varints):
+ *   header   'S' 'R' version
+ *   survey   submission_id user_id survey_id area_id ward_id answer_count answer*
+ *            submission_id is the 16 raw bytes of the survey's UUID, most significant first
+ *   answer   question_id tag value
+ *            tag 0 text     byte_length utf8_bytes
+ *            tag 1 single   option_id
+ *            tag 2 multiple option_count option_id*
+ *   batch    header survey_count survey*
+ */
+public final class SurveyPayloadCodec {
+
+    public static final String CONTENT_TYPE = "application/x-survey-responses";
+
+    // Version 2 added the submission id
+    private static final int VERSION = 2;
+
+    // Answer type tags
+    private static final int TAG_TEXT = 0;
+    private static final int TAG_SINGLE = 1;
+    private static final int TAG_MULTIPLE = 2;
+
+    private SurveyPayloadCodec() {
+    }
+
+    /**
+     * Encode one submission payload as built by SurveyActivity
+     * @param payload Submission JSON
+     * @return Binary payload
+     * @throws JSONException if a required field is missing
+     * @throws IllegalArgumentException if an id is negative or the submission id is not a UUID
+     */
+    public static byte[] encode(JSONObject payload) throws JSONException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try {
+            writeHeader(out);
+            writeSurvey(out, payload);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not fail
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode several submission payloads for the batch endpoint
+     * @param payloads Submission JSON objects
+     * @return Binary batch payload
+     * @throws JSONException if a required field is missing
+     * @throws IllegalArgumentException if an id is negative or the submission id is not a UUID
+     */
+    public static byte[] encodeBatch(List<JSONObject> payloads) throws JSONException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * payloads.size());
+        try {
+            writeHeader(out);
+            Varints.write(out, payloads.size());
+            for (JSONObject payload : payloads) {
+                writeSurvey(out, payload);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not fail
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out) {
+        out.write('S');
+        out.write('R');
+        out.write(VERSION);
+    }
+
+    private static void writeSurvey(ByteArrayOutputStream out, JSONObject payload) throws JSONException, IOException {
+        UUID submissionId = UUID.fromString(payload.getString("submission_id"));
+        writeLong(out, submissionId.getMostSignificantBits());
+        writeLong(out, submissionId.getLeastSignificantBits());
+
+        Varints.write(out, payload.getInt("user_id"));
+        Varints.write(out, payload.getInt("survey_id"));
+        Varints.write(out, payload.getInt("area_id"));
+        Varints.write(out, payload.getInt("ward_id"));
+
+        JSONArray answers = payload.getJSONArray("answers");
+        Varints.write(out, answers.length());
+        for (int i = 0; i < answers.length(); i++) {
+            writeAnswer(out, answers.getJSONObject(i));
+        }
+    }
+
+    private static void writeAnswer(ByteArrayOutputStream out, JSONObject answer) throws JSONException, IOException {
+        Varints.write(out, answer.getInt("question_id"));
+
+        // Same precedence as the server: multiple, then single, then text
+        JSONArray optionIds = answer.optJSONArray("selected_option_ids");
+        if (optionIds != null && optionIds.length() > 0) {
+            out.write(TAG_MULTIPLE);
+            Varints.write(out, optionIds.length());
+            for (int i = 0; i < optionIds.length(); i++) {
+                Varints.write(out, optionIds.getInt(i));
+            }
+        } else if (answer.has("selected_option_id")) {
+            out.write(TAG_SINGLE);
+            Varints.write(out, answer.getInt("selected_option_id"));
+        } else {
+            byte[] text = answer.getString("answer_text").getBytes(StandardCharsets.UTF_8);
+            out.write(TAG_TEXT);
+            Varints.write(out, text.length);
+            out.write(text, 0, text.length);
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
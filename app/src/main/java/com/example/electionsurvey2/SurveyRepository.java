@@ -0,0 +1,590 @@
+package com.example.electionsurvey2;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Survey Repository
+ * Shared store for areas, wards, the survey catalog and questions, backed
+ * by memory, then the on-device ReferenceDataStore, then the network.
+ * Stored data is shown immediately and revalidated in the background; a
+ * failed refresh is silent when there is something to show, so the flow
+ * keeps working offline. Requests for the same data are joined onto a
+ * single network call by ApiService, so a prefetch started at login is
+ * simply picked up by the screen that needs it.
+ * Questions are loaded per survey only when it is opened. They are kept
+ * while their catalog version is current and held in a size-bounded LRU,
+ * so carrying many surveys does not keep every option tree in memory.
+ * Screens pass their callbacks through a RequestScope. List screens observe
+ * their list and are handed every refreshed copy while their scope is
+ * alive. List downloads warm the shared cache and always finish; a
+ * questionnaire download is cancelled once every screen waiting for it is gone.
+ * All methods must be called on the main thread.
+ */
+public class SurveyRepository {
+
+    // Cached data older than this is fetched again (cheap thanks to ETag revalidation)
+    private static final long MAX_AGE_MS = 5 * 60 * 1000;
+
+    // Memory budget for questions, counted as questions plus options
+    private static final int MAX_CACHED_QUESTION_NODES = 1500;
+
+    private static final SurveyRepository INSTANCE = new SurveyRepository();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // Cache entries keyed by API endpoint
+    private final Map<String, Entry<?>> entries = new HashMap<>();
+
+    // Questions of recently opened surveys, least recently used evicted first
+    private final LruCache<Integer, CachedQuestions> questionCache =
+            new LruCache<Integer, CachedQuestions>(MAX_CACHED_QUESTION_NODES) {
+                @Override
+                protected int sizeOf(Integer surveyId, CachedQuestions cached) {
+                    return cached.nodes;
+                }
+            };
+
+    // Running question loads, by survey ID
+    private final Map<Integer, QuestionLoad> questionLoads = new HashMap<>();
+
+    // Single disk thread keeps reads and writes of the store ordered
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private ReferenceDataStore store;
+
+    private SurveyRepository() {
+    }
+
+    /**
+     * Get the process-wide repository
+     * @return Repository instance
+     */
+    public static SurveyRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Attach the on-device store, call once at process start
+     * @param context Application context
+     */
+    public void init(Context context) {
+        store = ReferenceDataStore.getInstance(context);
+    }
+
+    /**
+     * Fetch what the selection screens need concurrently, right after login
+     * Questions are not included, they load when a survey is opened.
+     * @param lastAreaId Area selected in the previous session, or -1 if none
+     */
+    public void prefetch(int lastAreaId) {
+        getAreas(null);
+        getSurveys(null);
+        if (lastAreaId != -1) {
+            getWards(lastAreaId, null);
+        }
+    }
+
+    /**
+     * Download areas, the survey catalog and the wards of the selected area
+     * even if the cached copies are fresh, for the background refresh job
+     * Questions are left alone: they are checked against the catalog when opened.
+     * @param areaId Selected area, or -1 if none
+     * @param onComplete Run once every download has succeeded or failed
+     */
+    public void syncReferenceData(int areaId, Runnable onComplete) {
+        int[] remaining = {areaId != -1 ? 3 : 2};
+        Runnable done = () -> {
+            if (--remaining[0] == 0) {
+                onComplete.run();
+            }
+        };
+
+        forceRefresh(ApiService.AREAS, ApiDecoders.AREA_LIST, areas -> store.saveAreas(areas), done);
+        forceRefresh(ApiService.SURVEYS, ApiDecoders.SURVEY_LIST, surveys -> store.saveSurveys(surveys), done);
+        if (areaId != -1) {
+            forceRefresh(ApiService.WARDS + areaId, ApiDecoders.WARD_LIST, wards -> store.saveWards(areaId, wards), done);
+        }
+    }
+
+    /**
+     * Get all areas
+     * @param callback Receives the areas, may be null to only warm the cache
+     */
+    public void getAreas(ApiService.DataCallback<List<Area>> callback) {
+        load(ApiService.AREAS, ApiDecoders.AREA_LIST,
+                () -> store.loadAreas(),
+                areas -> store.saveAreas(areas),
+                callback);
+    }
+
+    /**
+     * Get all areas now and every refreshed copy while the scope is alive
+     * @param scope Scope of the showing screen
+     * @param listener Receives the areas, again after each background refresh
+     */
+    public void observeAreas(RequestScope scope, ApiService.DataCallback<List<Area>> listener) {
+        observe(ApiService.AREAS, ApiDecoders.AREA_LIST,
+                () -> store.loadAreas(),
+                areas -> store.saveAreas(areas),
+                scope, listener);
+    }
+
+    /**
+     * Get wards for an area
+     * @param areaId Area ID
+     * @param callback Receives the wards, may be null to only warm the cache
+     */
+    public void getWards(int areaId, ApiService.DataCallback<List<Ward>> callback) {
+        load(ApiService.WARDS + areaId, ApiDecoders.WARD_LIST,
+                () -> store.loadWards(areaId),
+                wards -> store.saveWards(areaId, wards),
+                callback);
+    }
+
+    /**
+     * Get wards for an area now and every refreshed copy while the scope is alive
+     * @param areaId Area ID
+     * @param scope Scope of the showing screen
+     * @param listener Receives the wards, again after each background refresh
+     */
+    public void observeWards(int areaId, RequestScope scope, ApiService.DataCallback<List<Ward>> listener) {
+        observe(ApiService.WARDS + areaId, ApiDecoders.WARD_LIST,
+                () -> store.loadWards(areaId),
+                wards -> store.saveWards(areaId, wards),
+                scope, listener);
+    }
+
+    /**
+     * Get the survey catalog
+     * @param callback Receives the surveys, may be null to only warm the cache
+     */
+    public void getSurveys(ApiService.DataCallback<List<Survey>> callback) {
+        load(ApiService.SURVEYS, ApiDecoders.SURVEY_LIST,
+                () -> store.loadSurveys(),
+                surveys -> store.saveSurveys(surveys),
+                callback);
+    }
+
+    /**
+     * Get questions with options for a survey
+     * Questions of the requested version are served from memory or disk
+     * without any network call. With an unknown version stored questions are
+     * shown and revalidated, as for the other lists.
+     * @param surveyId Survey ID
+     * @param version Version from the catalog, or Survey.VERSION_UNKNOWN
+     * @param callback Receives the questions, may be null to only warm the cache
+     */
+    public void getQuestions(int surveyId, long version, ApiService.DataCallback<List<Question>> callback) {
+        getQuestions(surveyId, version, null, callback);
+    }
+
+    /**
+     * Get questions with options for a survey on behalf of a screen
+     * When the scope is cancelled the callback is dropped, and the download
+     * is cancelled too if no other screen is waiting for it.
+     * @param surveyId Survey ID
+     * @param version Version from the catalog, or Survey.VERSION_UNKNOWN
+     * @param scope Scope of the asking screen, or null to always finish the load
+     * @param callback Receives the questions while the scope is alive
+     */
+    public void getQuestions(int surveyId, long version, RequestScope scope,
+                             ApiService.DataCallback<List<Question>> callback) {
+        if (scope != null && scope.isCancelled()) {
+            return;
+        }
+        CachedQuestions cached = questionCache.get(surveyId);
+        if (cached != null && cached.isCurrent(version)) {
+            if (callback != null) {
+                callback.onSuccess(cached.questions);
+            }
+            return;
+        }
+
+        QuestionLoad load = questionLoads.get(surveyId);
+        boolean loading = load != null;
+        if (!loading) {
+            load = new QuestionLoad(surveyId);
+            questionLoads.put(surveyId, load);
+        }
+        load.subscribe(scope, callback);
+        if (loading) {
+            return;
+        }
+
+        if (store == null) {
+            fetchQuestions(load, version, null, Survey.VERSION_UNKNOWN);
+            return;
+        }
+        final QuestionLoad target = load;
+        diskExecutor.execute(() -> {
+            long storedVersion = store.loadQuestionsVersion(surveyId);
+            List<Question> stored = store.loadQuestions(surveyId);
+            MAIN_HANDLER.post(() -> {
+                if (questionLoads.get(surveyId) != target) {
+                    // Every screen waiting for it is gone
+                    return;
+                }
+                if (stored == null) {
+                    fetchQuestions(target, version, null, Survey.VERSION_UNKNOWN);
+                } else if (version != Survey.VERSION_UNKNOWN && storedVersion == version) {
+                    // Same version as the catalog, so the same content
+                    finishQuestions(target, version, stored);
+                } else if (version == Survey.VERSION_UNKNOWN) {
+                    // Shown now, but revalidated right away
+                    finishQuestions(target, storedVersion, stored);
+                    revalidateQuestions(surveyId);
+                } else {
+                    // Outdated, kept in case the new version cannot be downloaded
+                    fetchQuestions(target, version, stored, storedVersion);
+                }
+            });
+        });
+    }
+
+    /**
+     * Download a survey's questions and save them under the version they were requested for
+     * Questions requested without a version are saved under the one the catalog advertises.
+     * @param stale Older stored questions to fall back on offline, or null
+     */
+    private void fetchQuestions(QuestionLoad load, long requested, List<Question> stale, long staleVersion) {
+        int surveyId = load.surveyId;
+        ApiService.getData(ApiService.SURVEY_QUESTIONS + surveyId + "/questions", ApiDecoders.QUESTION_LIST, load.scope,
+                new ApiService.DataCallback<List<Question>>() {
+                    @Override
+                    public void onSuccess(List<Question> questions) {
+                        long version = requested != Survey.VERSION_UNKNOWN ? requested : catalogVersion(surveyId);
+                        if (store != null) {
+                            diskExecutor.execute(() -> store.saveQuestions(surveyId, version, questions));
+                        }
+                        finishQuestions(load, version, questions);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        if (stale != null) {
+                            // Offline: an older questionnaire beats none
+                            finishQuestions(load, staleVersion, stale);
+                            return;
+                        }
+                        for (ApiService.DataCallback<List<Question>> callback : load.finish()) {
+                            callback.onError(error);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Version of a survey in the catalog held in memory
+     * @return Catalog version, or Survey.VERSION_UNKNOWN without a catalog
+     */
+    @SuppressWarnings("unchecked")
+    private long catalogVersion(int surveyId) {
+        Entry<List<Survey>> catalog = (Entry<List<Survey>>) entries.get(ApiService.SURVEYS);
+        if (catalog == null || catalog.data == null) {
+            return Survey.VERSION_UNKNOWN;
+        }
+        for (Survey survey : catalog.data) {
+            if (survey.getId() == surveyId) {
+                return survey.getVersion();
+            }
+        }
+        return Survey.VERSION_UNKNOWN;
+    }
+
+    /**
+     * Refresh questions already handed out, nobody waits for the result
+     */
+    private void revalidateQuestions(int surveyId) {
+        if (questionLoads.containsKey(surveyId)) {
+            return;
+        }
+        QuestionLoad load = new QuestionLoad(surveyId);
+        load.subscribe(null, null);
+        questionLoads.put(surveyId, load);
+        fetchQuestions(load, Survey.VERSION_UNKNOWN, null, Survey.VERSION_UNKNOWN);
+    }
+
+    /**
+     * Cache loaded questions and hand them to everyone waiting
+     */
+    private void finishQuestions(QuestionLoad load, long version, List<Question> questions) {
+        questionCache.put(load.surveyId, new CachedQuestions(version, questions));
+        for (ApiService.DataCallback<List<Question>> callback : load.finish()) {
+            callback.onSuccess(questions);
+        }
+    }
+
+    /**
+     * Reads a list from the store, null if it was never saved
+     */
+    private interface DiskRead<T> {
+        T read();
+    }
+
+    /**
+     * Writes a list to the store
+     */
+    private interface DiskWrite<T> {
+        void write(T data);
+    }
+
+    /**
+     * Serve from memory, else from disk, and refresh from the network when stale
+     */
+    private <T> void load(String endpoint, ApiService.Decoder<T> decoder,
+                          DiskRead<T> diskRead, DiskWrite<T> diskWrite,
+                          ApiService.DataCallback<T> callback) {
+        Entry<T> entry = entryFor(endpoint);
+
+        if (entry.data != null) {
+            if (callback != null) {
+                callback.onSuccess(entry.data);
+            }
+            if (SystemClock.elapsedRealtime() - entry.loadedAt >= MAX_AGE_MS) {
+                refresh(endpoint, decoder, diskWrite, entry);
+            }
+            return;
+        }
+
+        if (callback != null) {
+            entry.waiting.add(callback);
+        }
+
+        if (entry.diskChecked || store == null) {
+            refresh(endpoint, decoder, diskWrite, entry);
+            return;
+        }
+        if (entry.diskReading) {
+            return;
+        }
+
+        // First use in this process: try the store before the network
+        final Entry<T> target = entry;
+        target.diskReading = true;
+        diskExecutor.execute(() -> {
+            T stored = diskRead.read();
+            MAIN_HANDLER.post(() -> {
+                target.diskReading = false;
+                target.diskChecked = true;
+                if (stored != null && target.data == null) {
+                    // Shown now, but revalidated right away
+                    target.data = stored;
+                    target.loadedAt = SystemClock.elapsedRealtime() - MAX_AGE_MS;
+                    target.deliverSuccess(stored);
+                }
+                refresh(endpoint, decoder, diskWrite, target);
+            });
+        });
+    }
+
+    /**
+     * Like load(), but keep the listener registered until the scope is cancelled
+     * The background refresh that follows a memory or disk hit, and any
+     * refresh by the sync job, reaches the listener as well.
+     */
+    private <T> void observe(String endpoint, ApiService.Decoder<T> decoder,
+                             DiskRead<T> diskRead, DiskWrite<T> diskWrite,
+                             RequestScope scope, ApiService.DataCallback<T> listener) {
+        if (scope.isCancelled()) {
+            return;
+        }
+        Entry<T> entry = entryFor(endpoint);
+        entry.listeners.add(listener);
+        scope.whenCancelled(() -> entry.listeners.remove(listener));
+
+        if (entry.data != null) {
+            listener.onSuccess(entry.data);
+        }
+        load(endpoint, decoder, diskRead, diskWrite, null);
+    }
+
+    /**
+     * Fetch from the network regardless of age and run a callback when it settles
+     */
+    private <T> void forceRefresh(String endpoint, ApiService.Decoder<T> decoder,
+                                  DiskWrite<T> diskWrite, Runnable onSettled) {
+        Entry<T> entry = entryFor(endpoint);
+        entry.waiting.add(new ApiService.DataCallback<T>() {
+            @Override
+            public void onSuccess(T data) {
+                onSettled.run();
+            }
+
+            @Override
+            public void onError(String error) {
+                onSettled.run();
+            }
+        });
+        refresh(endpoint, decoder, diskWrite, entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> entryFor(String endpoint) {
+        Entry<T> entry = (Entry<T>) entries.get(endpoint);
+        if (entry == null) {
+            entry = new Entry<>();
+            entries.put(endpoint, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Fetch from the network (joining any running request) and save the result
+     */
+    private <T> void refresh(String endpoint, ApiService.Decoder<T> decoder, DiskWrite<T> diskWrite, Entry<T> entry) {
+        if (entry.refreshing) {
+            return;
+        }
+        entry.refreshing = true;
+
+        ApiService.getData(endpoint, decoder, new ApiService.DataCallback<T>() {
+            @Override
+            public void onSuccess(T data) {
+                entry.refreshing = false;
+                entry.data = data;
+                entry.loadedAt = SystemClock.elapsedRealtime();
+                entry.diskChecked = true;
+                if (store != null) {
+                    diskExecutor.execute(() -> diskWrite.write(data));
+                }
+                entry.deliverSuccess(data);
+            }
+
+            @Override
+            public void onError(String error) {
+                entry.refreshing = false;
+                // Only reported when there is nothing stored to fall back on
+                entry.deliverError(error);
+            }
+        });
+    }
+
+    /**
+     * One survey's questions being loaded, with the screens waiting for them
+     * The download runs in the load's own scope, cancelled when the last
+     * scoped waiter's screen is destroyed. Unscoped waiters keep it running.
+     */
+    private class QuestionLoad {
+        final int surveyId;
+        final RequestScope scope = new RequestScope("SurveyRepository");
+        final List<ApiService.DataCallback<List<Question>>> waiting = new ArrayList<>();
+        // Set by an unscoped caller, e.g. a prefetch, which never goes away
+        boolean pinned = false;
+
+        QuestionLoad(int surveyId) {
+            this.surveyId = surveyId;
+        }
+
+        void subscribe(RequestScope owner, ApiService.DataCallback<List<Question>> callback) {
+            if (owner == null || callback == null) {
+                pinned = true;
+                if (callback != null) {
+                    waiting.add(callback);
+                }
+                return;
+            }
+            // The cancel hook needs the wrapper it belongs to
+            AtomicReference<RequestScope.ScopedCallback<List<Question>>> scoped = new AtomicReference<>();
+            scoped.set(owner.wrap(callback, () -> unsubscribe(scoped.get())));
+            waiting.add(scoped.get());
+        }
+
+        private void unsubscribe(ApiService.DataCallback<List<Question>> callback) {
+            waiting.remove(callback);
+            if (waiting.isEmpty() && !pinned && questionLoads.get(surveyId) == this) {
+                questionLoads.remove(surveyId);
+                scope.cancel();
+            }
+        }
+
+        /**
+         * Take the load out of the running set
+         * @return Callbacks to deliver the result to
+         */
+        List<ApiService.DataCallback<List<Question>>> finish() {
+            if (questionLoads.get(surveyId) == this) {
+                questionLoads.remove(surveyId);
+            }
+            List<ApiService.DataCallback<List<Question>>> callbacks = new ArrayList<>(waiting);
+            waiting.clear();
+            return callbacks;
+        }
+    }
+
+    /**
+     * Questions of one survey held in memory
+     */
+    private static class CachedQuestions {
+        final long version;
+        final List<Question> questions;
+        final int nodes;
+        final long loadedAt = SystemClock.elapsedRealtime();
+
+        CachedQuestions(long version, List<Question> questions) {
+            this.version = version;
+            this.questions = questions;
+            int count = questions.size();
+            for (Question question : questions) {
+                count += question.getOptions().size();
+            }
+            // An empty survey still takes up a slot
+            this.nodes = Math.max(1, count);
+        }
+
+        /**
+         * @return true if these questions can be used for the requested version
+         */
+        boolean isCurrent(long requested) {
+            if (requested != Survey.VERSION_UNKNOWN) {
+                return version == requested;
+            }
+            return SystemClock.elapsedRealtime() - loadedAt < MAX_AGE_MS;
+        }
+    }
+
+    /**
+     * Cached value for one endpoint, the callbacks waiting for it and the screens observing it
+     */
+    private static class Entry<T> {
+        T data;
+        long loadedAt;
+        boolean diskChecked;
+        boolean diskReading;
+        boolean refreshing;
+        // One-shot, cleared on delivery
+        final List<ApiService.DataCallback<T>> waiting = new ArrayList<>();
+        // Kept until their scope is cancelled
+        final List<ApiService.DataCallback<T>> listeners = new ArrayList<>();
+
+        void deliverSuccess(T value) {
+            List<ApiService.DataCallback<T>> callbacks = new ArrayList<>(waiting);
+            waiting.clear();
+            callbacks.addAll(listeners);
+            for (ApiService.DataCallback<T> callback : callbacks) {
+                callback.onSuccess(value);
+            }
+        }
+
+        void deliverError(String error) {
+            List<ApiService.DataCallback<T>> callbacks = new ArrayList<>(waiting);
+            waiting.clear();
+            if (data == null) {
+                // Observers already showing data keep it
+                callbacks.addAll(listeners);
+            }
+            for (ApiService.DataCallback<T> callback : callbacks) {
+                callback.onError(error);
+            }
+        }
+    }
+}
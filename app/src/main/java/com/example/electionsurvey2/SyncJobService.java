@@ -0,0 +1,79 @@
+package com.example.electionsurvey2;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+
+/**
+ * Sync Job Service
+ * Runs the background jobs planned by SyncScheduler: uploading the
+ * submission outbox and refreshing reference data. Jobs start on the
+ * main thread and do their work on the outbox and repository threads.
+ */
+public class SyncJobService extends JobService {
+
+    private static final String TAG = "SyncJobService";
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        switch (params.getJobId()) {
+            case SyncScheduler.JOB_UPLOAD:
+                upload(params);
+                return true;
+            case SyncScheduler.JOB_REFRESH:
+                return refresh(params);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (params.getJobId() == SyncScheduler.JOB_UPLOAD) {
+            SyncScheduler.onUploadFinished();
+        }
+        // Constraints lost mid-way, e.g. the network dropped: run again later
+        return true;
+    }
+
+    /**
+     * Drain the outbox, then plan what comes next
+     */
+    private void upload(JobParameters params) {
+        SyncScheduler.onUploadStarted();
+        SubmissionOutbox outbox = SubmissionOutbox.getInstance(this);
+        outbox.drain(complete -> {
+            SyncScheduler.onUploadFinished();
+            if (complete) {
+                jobFinished(params, false);
+                // Surveys queued while this upload ran
+                SyncScheduler.scheduleUpload(this, outbox.getPendingCount());
+                return;
+            }
+
+            // Server backpressure (Retry-After or an open circuit) beats the default backoff
+            long retryAfterMs = ApiService.getCircuitBreaker().getRetryAfterMs();
+            if (retryAfterMs > 0) {
+                AppLog.i(TAG, "Upload paused for %d s at the server's request", retryAfterMs / 1000);
+                jobFinished(params, false);
+                SyncScheduler.scheduleUploadAfter(this, retryAfterMs);
+            } else {
+                jobFinished(params, true);
+            }
+        });
+    }
+
+    /**
+     * Refresh reference data for the signed-in interviewer
+     * @return true if work was started
+     */
+    private boolean refresh(JobParameters params) {
+        SessionStore session = SessionStore.getInstance();
+        if (!session.getUser().isLoggedIn()) {
+            // Nothing on screen needs it, save the radio
+            return false;
+        }
+        int areaId = session.getSelection().getAreaId();
+        SurveyRepository.getInstance().syncReferenceData(areaId, () -> jobFinished(params, false));
+        return true;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.electionsurvey2;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.SystemClock;
+
+/**
+ * Sync Scheduler
+ * Plans background uploads of queued surveys and reference data refreshes
+ * as JobScheduler jobs run by SyncJobService, so they survive the activity
+ * and the process and never wake the radio for a single interview.
+ *
+ * Surveys are gathered into upload windows. The window is short while the
+ * device is charging or on an unmetered or strong connection, longer on an
+ * ordinary mobile link and longest on a low battery; a full batch request
+ * (SubmissionOutbox.MAX_BATCH_SIZE surveys) goes out right away. A survey
+ * queued while an upload is already planned simply rides along with it.
+ * When the server asks for a pause (Retry-After, or the circuit breaker is
+ * open) the next upload waits at least that long.
+ */
+public final class SyncScheduler {
+
+    private static final String TAG = "SyncScheduler";
+
+    // Job IDs, unique within the app
+    static final int JOB_UPLOAD = 1001;
+    static final int JOB_REFRESH = 1002;
+
+    // Upload windows
+    private static final long FAST_WINDOW_MS = 2 * 60 * 1000;
+    private static final long NORMAL_WINDOW_MS = 15 * 60 * 1000;
+    private static final long LOW_BATTERY_WINDOW_MS = 45 * 60 * 1000;
+
+    // Battery percentage below which uploads are spaced out
+    private static final int LOW_BATTERY_PERCENT = 20;
+
+    // Downstream bandwidth that counts as a strong mobile connection
+    private static final int STRONG_LINK_KBPS = 5000;
+
+    // First retry after a failed upload, doubled by JobScheduler each time
+    private static final long RETRY_BACKOFF_MS = 30 * 1000;
+
+    // Reference data refresh, cheap thanks to ETag revalidation
+    private static final long REFRESH_INTERVAL_MS = 6 * 60 * 60 * 1000;
+    private static final long REFRESH_FLEX_MS = 60 * 60 * 1000;
+
+    // When the planned upload is due, elapsedRealtime; 0 if none is known in this process
+    private static long uploadDueAt = 0;
+    // Rescheduling a running job would stop it; the running upload picks up new surveys instead
+    private static boolean uploadRunning = false;
+
+    private SyncScheduler() {
+    }
+
+    /**
+     * Plan an upload for the surveys in the outbox
+     * @param context Any context
+     * @param pendingCount Surveys waiting to be uploaded
+     */
+    public static void scheduleUpload(Context context, int pendingCount) {
+        if (pendingCount == 0) {
+            return;
+        }
+        long windowMs = pendingCount >= SubmissionOutbox.MAX_BATCH_SIZE ? 0 : uploadWindow(context);
+        scheduleUploadIn(context, windowMs, false);
+    }
+
+    /**
+     * Plan the next upload no earlier than the server asked for
+     * @param context Any context
+     * @param delayMs Pause requested by the server
+     */
+    public static void scheduleUploadAfter(Context context, long delayMs) {
+        scheduleUploadIn(context, delayMs, true);
+    }
+
+    /**
+     * Plan the periodic reference data refresh unless it is already planned
+     * @param context Any context
+     */
+    public static void scheduleRefresh(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_REFRESH) != null) {
+            // Rescheduling would restart the period on every launch
+            return;
+        }
+
+        JobInfo.Builder builder = new JobInfo.Builder(JOB_REFRESH, service(context))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(REFRESH_INTERVAL_MS, REFRESH_FLEX_MS)
+                .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true);
+        }
+        schedule(scheduler, builder.build());
+    }
+
+    /**
+     * Called by SyncJobService when the upload job starts
+     */
+    static synchronized void onUploadStarted() {
+        uploadDueAt = 0;
+        uploadRunning = true;
+    }
+
+    /**
+     * Called by SyncJobService once the upload job is finished with
+     */
+    static synchronized void onUploadFinished() {
+        uploadRunning = false;
+    }
+
+    private static synchronized void scheduleUploadIn(Context context, long delayMs, boolean replace) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null) {
+            return;
+        }
+
+        // A running upload, or one due sooner, already carries this survey
+        long dueAt = SystemClock.elapsedRealtime() + delayMs;
+        if (!replace && (uploadRunning || (uploadDueAt != 0 && uploadDueAt <= dueAt
+                && scheduler.getPendingJob(JOB_UPLOAD) != null))) {
+            return;
+        }
+
+        JobInfo job = new JobInfo.Builder(JOB_UPLOAD, service(context))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setMinimumLatency(delayMs)
+                .setBackoffCriteria(RETRY_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+                .setPersisted(true)
+                .build();
+        if (schedule(scheduler, job)) {
+            uploadDueAt = dueAt;
+            AppLog.d(TAG, "Upload planned in %d s", delayMs / 1000);
+        }
+    }
+
+    /**
+     * Pick the upload window from the current power and network state
+     */
+    private static long uploadWindow(Context context) {
+        BatteryManager battery = context.getSystemService(BatteryManager.class);
+        boolean charging = battery != null && battery.isCharging();
+        if (charging) {
+            return FAST_WINDOW_MS;
+        }
+
+        int percent = battery != null ? battery.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) : -1;
+        if (percent > 0 && percent <= LOW_BATTERY_PERCENT) {
+            return LOW_BATTERY_WINDOW_MS;
+        }
+
+        return isGoodNetwork(context) ? FAST_WINDOW_MS : NORMAL_WINDOW_MS;
+    }
+
+    /**
+     * @return true on an unmetered or strong connection, where a transfer is cheap
+     */
+    private static boolean isGoodNetwork(Context context) {
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) {
+            return false;
+        }
+        Network network = connectivity.getActiveNetwork();
+        NetworkCapabilities capabilities = network != null ? connectivity.getNetworkCapabilities(network) : null;
+        if (capabilities == null) {
+            return false;
+        }
+        return capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)
+                || capabilities.getLinkDownstreamBandwidthKbps() >= STRONG_LINK_KBPS;
+    }
+
+    private static boolean schedule(JobScheduler scheduler, JobInfo job) {
+        try {
+            return scheduler.schedule(job) == JobScheduler.RESULT_SUCCESS;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Too many jobs or a missing manifest entry; uploads resume on the next launch
+            AppLog.e(TAG, "Unable to schedule job " + job.getId(), e);
+            return false;
+        }
+    }
+
+    private static ComponentName service(Context context) {
+        return new ComponentName(context, SyncJobService.class);
+    }
+}
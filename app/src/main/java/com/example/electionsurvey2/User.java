@@ -0,0 +1,36 @@
+package com.example.electionsurvey2;
+
+/**
+ * User Model Class
+ * Represents the logged-in survey enumerator
+ */
+public class User {
+    private int id;
+    private String name;
+    private String phone;
+
+    /**
+     * Constructor
+     * @param id User ID from database
+     * @param name User's display name
+     * @param phone User's phone number
+     */
+    public User(int id, String name, String phone) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+    }
+
+    // Getters
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+}
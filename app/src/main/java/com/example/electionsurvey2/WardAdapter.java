@@ -1,24 +1,92 @@
 package com.example.electionsurvey2;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * RecyclerView Adapter for Wards
  * Displays list of wards with click handling
+ * Updates are diffed on a background thread and only changed rows are
+ * rebound; ids are stable so scroll position survives a refresh.
+ * filter() narrows the rows to a type-ahead search without copying the list.
+ * The search index is built on the differ's background thread and swapped
+ * in together with the diffed list.
  */
 public class WardAdapter extends RecyclerView.Adapter<WardAdapter.WardViewHolder> {
 
-    private List<Ward> wardList;
+    private static final DiffUtil.ItemCallback<Ward> DIFF_CALLBACK = new DiffUtil.ItemCallback<Ward>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Ward oldItem, @NonNull Ward newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Ward oldItem, @NonNull Ward newItem) {
+            // The name is the only thing a row shows
+            String oldName = oldItem.getWardName();
+            return oldName != null ? oldName.equals(newItem.getWardName()) : newItem.getWardName() == null;
+        }
+    };
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final AsyncDifferConfig<Ward> differConfig = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build();
+    private final AsyncListDiffer<Ward> differ = new AsyncListDiffer<>(new ListUpdateCallback() {
+        // Diffs describe the full list; while filtering the rows are refreshed by filter() instead
+        @Override
+        public void onInserted(int position, int count) {
+            if (!isFiltering()) {
+                notifyItemRangeInserted(position, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (!isFiltering()) {
+                notifyItemRangeRemoved(position, count);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            if (!isFiltering()) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            if (!isFiltering()) {
+                notifyItemRangeChanged(position, count, payload);
+            }
+        }
+    }, differConfig);
     private OnItemClickListener listener;
 
+    // Search over the current list, replaced when a submitted list is committed
+    private List<Ward> indexedWards = Collections.emptyList();
+    private SearchIndex searchIndex = new SearchIndex(Collections.emptyList());
+    private CharSequence query;
+    private int[] matches = new int[0];
+    private int matchCount = 0;
+    // Latest updateWards() call, older index builds are dropped
+    private int generation = 0;
+
     /**
      * Interface for item click events
      */
@@ -32,8 +100,9 @@ public class WardAdapter extends RecyclerView.Adapter<WardAdapter.WardViewHolder
      * @param listener Click listener
      */
     public WardAdapter(List<Ward> wardList, OnItemClickListener listener) {
-        this.wardList = wardList;
         this.listener = listener;
+        setHasStableIds(true);
+        updateWards(wardList);
     }
 
     @NonNull
@@ -46,13 +115,26 @@ public class WardAdapter extends RecyclerView.Adapter<WardAdapter.WardViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull WardViewHolder holder, int position) {
-        Ward ward = wardList.get(position);
+        Ward ward = getItem(position);
         holder.bind(ward, listener);
     }
 
     @Override
     public int getItemCount() {
-        return wardList != null ? wardList.size() : 0;
+        return isFiltering() ? matchCount : differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    private Ward getItem(int position) {
+        return isFiltering() ? indexedWards.get(matches[position]) : differ.getCurrentList().get(position);
+    }
+
+    private boolean isFiltering() {
+        return query != null;
     }
 
     /**
@@ -85,15 +167,53 @@ public class WardAdapter extends RecyclerView.Adapter<WardAdapter.WardViewHolder
 
     /**
      * Update the list of wards
+     * The list is copied, so the caller may keep reusing its own.
      * @param newWards New list of wards
      */
     public void updateWards(List<Ward> newWards) {
-        this.wardList = newWards;
+        List<Ward> copy = newWards != null ? new ArrayList<>(newWards) : Collections.emptyList();
+        int submitted = ++generation;
+
+        // Index once per list, off the main thread; keystrokes only search it
+        differConfig.getBackgroundThreadExecutor().execute(() -> {
+            List<String> names = new ArrayList<>(copy.size());
+            for (Ward ward : copy) {
+                names.add(ward.getWardName() != null ? ward.getWardName() : "");
+            }
+            SearchIndex index = new SearchIndex(names);
+
+            MAIN_HANDLER.post(() -> {
+                if (submitted != generation) {
+                    return;
+                }
+                differ.submitList(copy, () -> {
+                    indexedWards = copy;
+                    searchIndex = index;
+                    matches = new int[copy.size()];
+                    if (isFiltering()) {
+                        filter(query);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Show only the wards matching a search
+     * Runs on every keystroke and allocates nothing.
+     * @param text Search text, kept and re-applied when the list changes; null or empty shows all wards
+     */
+    public void filter(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            if (isFiltering()) {
+                query = null;
+                notifyDataSetChanged();
+            }
+            return;
+        }
+        query = text;
+        matchCount = searchIndex.search(text, matches);
+        // Stable ids let RecyclerView keep the rows that are still shown
         notifyDataSetChanged();
     }
 }
-
-
-
-
-
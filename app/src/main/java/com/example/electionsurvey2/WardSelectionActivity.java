@@ -1,9 +1,11 @@
 package com.example.electionsurvey2;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.Toast;
@@ -12,6 +14,7 @@ import android.view.MenuItem;
 import android.widget.TextView;
 
 import androidx.appcompat.app.ActionBarDrawerToggle;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
@@ -21,18 +24,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.navigation.NavigationView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
-
 /**
  * Ward Selection Activity
  * Displays list of wards for selected area from API
@@ -45,6 +39,7 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
     private Toolbar toolbar;
     private ProgressBar progressBar;
     private RecyclerView recyclerViewWards;
+    private EditText etSearch;
     private LinearLayout emptyState;
     private TextView tvUserEmail;
     private TextView tvSelectedArea;
@@ -55,10 +50,8 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
     private int areaId;
     private String areaName;
 
-    // SharedPreferences
-    private static final String PREF_NAME = "ElectionSurveyPrefs";
-    private static final String KEY_WARD_ID = "ward_id";
-    private static final String KEY_WARD_NAME = "ward_name";
+    // Requests whose results are only shown on this screen
+    private final RequestScope requestScope = new RequestScope("WardSelectionActivity");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -78,6 +71,9 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
         // Setup RecyclerView
         setupRecyclerView();
 
+        // Setup type-ahead search
+        setupSearch();
+
         // Update user info in drawer header
         updateUserInfo();
 
@@ -113,6 +109,7 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
         toolbar = findViewById(R.id.toolbar);
         progressBar = findViewById(R.id.progressBar);
         recyclerViewWards = findViewById(R.id.recyclerViewWards);
+        etSearch = findViewById(R.id.etSearch);
         emptyState = findViewById(R.id.emptyState);
         tvSelectedArea = findViewById(R.id.tvSelectedArea);
         tvUserEmail = navigationView.getHeaderView(0).findViewById(R.id.tvUserEmail);
@@ -153,9 +150,7 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
      * Update user information in drawer header
      */
     private void updateUserInfo() {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        String userName = prefs.getString("user_name", "User");
-        tvUserEmail.setText(userName);
+        tvUserEmail.setText(SessionStore.getInstance().getUser().getName());
     }
 
     /**
@@ -165,10 +160,9 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
         if (tvSelectedArea != null && areaName != null && !areaName.isEmpty()) {
             tvSelectedArea.setText(areaName);
         } else if (tvSelectedArea != null) {
-            // Fallback: Get area name from SharedPreferences if not in intent
-            SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-            String savedAreaName = prefs.getString("area_name", "Unknown Area");
-            tvSelectedArea.setText(savedAreaName);
+            // Fallback: Get area name from the session if not in intent
+            String savedAreaName = SessionStore.getInstance().getSelection().getAreaName();
+            tvSelectedArea.setText(savedAreaName.isEmpty() ? "Unknown Area" : savedAreaName);
         }
     }
 
@@ -181,6 +175,26 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
         recyclerViewWards.setLayoutManager(new LinearLayoutManager(this));
     }
 
+    /**
+     * Filter the list as the user types, entirely on the loaded wards
+     */
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                wardAdapter.filter(s);
+            }
+        });
+    }
+
     /**
      * Load wards from API for selected area
      */
@@ -188,77 +202,35 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
         // Show loading
         showLoading(true);
 
-        // Build endpoint with area ID
-        String endpoint = ApiService.WARDS + areaId;
-
-        // Make API request
-        ApiService.get(endpoint, new Callback() {
+        // Served from the shared repository, prefetched at login for the last used area;
+        // background refreshes are delivered here again while the screen is open
+        SurveyRepository.getInstance().observeWards(areaId, requestScope, new ApiService.DataCallback<List<Ward>>() {
             @Override
-            public void onFailure(Call call, IOException e) {
-                // Network error
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    Toast.makeText(WardSelectionActivity.this,
-                            "Unable to connect to server",
-                            Toast.LENGTH_LONG).show();
-                    showEmptyState(true);
-                });
+            public void onSuccess(List<Ward> wards) {
+                showLoading(false);
+                handleWardsResponse(wards);
             }
 
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                final String responseBody = response.body().string();
-
-                runOnUiThread(() -> {
-                    showLoading(false);
-                    handleWardsResponse(responseBody);
-                });
+            public void onError(String error) {
+                showLoading(false);
+                Toast.makeText(WardSelectionActivity.this, error, Toast.LENGTH_LONG).show();
+                showEmptyState(true);
             }
         });
     }
 
     /**
-     * Handle API response
-     * @param responseBody JSON response from server
+     * Handle decoded wards from API
+     * @param wards Wards returned by the server
      */
-    private void handleWardsResponse(String responseBody) {
-        try {
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            boolean success = jsonResponse.getBoolean("success");
-
-            if (success) {
-                // Parse wards array
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                wardList.clear();
-
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject wardJson = dataArray.getJSONObject(i);
-                    int id = wardJson.getInt("id");
-                    String wardName = wardJson.getString("ward_name");
-
-                    Ward ward = new Ward(id, wardName);
-                    wardList.add(ward);
-                }
-
-                // Update RecyclerView
-                if (wardList.isEmpty()) {
-                    showEmptyState(true);
-                } else {
-                    showEmptyState(false);
-                    wardAdapter.updateWards(wardList);
-                }
-
-            } else {
-                // API returned success: false
-                String message = jsonResponse.optString("message", "Failed to load wards");
-                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
-                showEmptyState(true);
-            }
+    private void handleWardsResponse(List<Ward> wards) {
+        wardList.clear();
+        wardList.addAll(wards);
 
-        } catch (JSONException e) {
-            Toast.makeText(this, "Error parsing response", Toast.LENGTH_SHORT).show();
-            showEmptyState(true);
-        }
+        // Called again for every background refresh: the adapter diffs it and rebinds only changed rows
+        wardAdapter.updateWards(wardList);
+        showEmptyState(wardList.isEmpty());
     }
 
     /**
@@ -267,20 +239,76 @@ public class WardSelectionActivity extends AppCompatActivity implements WardAdap
      */
     @Override
     public void onItemClick(Ward ward) {
-        // Save selected ward to SharedPreferences
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(KEY_WARD_ID, ward.getId());
-        editor.putString(KEY_WARD_NAME, ward.getWardName());
-        editor.apply();
-
-        // Navigate to Survey Activity
+        // Remember the selected ward
+        SessionStore.getInstance().selectWard(ward);
+
+        // Pick the questionnaire; the catalog is normally prefetched at login
+        showLoading(true);
+        SurveyRepository.getInstance().getSurveys(requestScope.wrap(new ApiService.DataCallback<List<Survey>>() {
+            @Override
+            public void onSuccess(List<Survey> surveys) {
+                showLoading(false);
+                chooseSurvey(ward, surveys);
+            }
+
+            @Override
+            public void onError(String error) {
+                showLoading(false);
+                // Server without a catalog: it only serves the default survey
+                startSurvey(ward, new Survey(Survey.DEFAULT_ID, null, null, 0, Survey.VERSION_UNKNOWN));
+            }
+        }));
+    }
+
+    /**
+     * Start the only survey, or let the interviewer pick one
+     * @param ward Selected ward
+     * @param surveys Survey catalog
+     */
+    private void chooseSurvey(Ward ward, List<Survey> surveys) {
+        if (surveys.isEmpty()) {
+            Toast.makeText(this, "No surveys available", Toast.LENGTH_LONG).show();
+            return;
+        }
+        if (surveys.size() == 1) {
+            startSurvey(ward, surveys.get(0));
+            return;
+        }
+
+        CharSequence[] labels = new CharSequence[surveys.size()];
+        for (int i = 0; i < surveys.size(); i++) {
+            Survey survey = surveys.get(i);
+            labels[i] = survey.getTitle() + " (" + survey.getQuestionCount() + " questions)";
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Choose Survey")
+                .setItems(labels, (dialog, which) -> startSurvey(ward, surveys.get(which)))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Navigate to Survey Activity
+     * @param ward Selected ward
+     * @param survey Survey to run
+     */
+    private void startSurvey(Ward ward, Survey survey) {
         Intent intent = new Intent(WardSelectionActivity.this, SurveyActivity.class);
         intent.putExtra("ward_id", ward.getId());
         intent.putExtra("ward_name", ward.getWardName());
+        intent.putExtra("survey_id", survey.getId());
+        intent.putExtra("survey_version", survey.getVersion());
+        intent.putExtra("survey_title", survey.getTitle());
         startActivity(intent);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop callbacks to this screen and cancel requests only it was waiting for
+        requestScope.cancel();
+    }
+
     /**
      * Show/hide loading state
      * @param isLoading Loading state
@@ -0,0 +1,162 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * AnswerJournalCodec unit tests
+ * Replay must keep every intact record before a torn or corrupt one, and
+ * must never hand one interview's answers to another.
+ */
+public class AnswerJournalCodecTest {
+
+    private static final int USER = 7, SURVEY = 1, AREA = 300, WARD = 12;
+
+    @Test
+    public void replay_restoresEveryAnswerKind() throws IOException {
+        byte[] journal = journal(
+                AnswerJournalCodec.answerFrame(new Answer(1, "\u0928\u093e\u092e"), 1),
+                AnswerJournalCodec.answerFrame(new Answer(2, 129), 2),
+                AnswerJournalCodec.answerFrame(new Answer(3, new int[]{4, 200}), 3));
+
+        AnswerJournalCodec.Replay replay = replay(journal);
+
+        assertTrue(replay.matches);
+        assertEquals(journal.length, replay.validLength);
+        assertEquals(3, replay.nextIndex);
+        assertEquals(3, replay.answers.size());
+        assertEquals("\u0928\u093e\u092e", replay.answers.get(0).getAnswerText());
+        assertEquals(Integer.valueOf(129), replay.answers.get(1).getSelectedOptionId());
+        assertArrayEquals(new int[]{4, 200}, replay.answers.get(2).getSelectedOptionIds());
+    }
+
+    @Test
+    public void replay_laterRecordReplacesEarlierAnswer() throws IOException {
+        byte[] journal = journal(
+                AnswerJournalCodec.answerFrame(new Answer(1, 10), 1),
+                AnswerJournalCodec.answerFrame(new Answer(2, 20), 2),
+                AnswerJournalCodec.answerFrame(new Answer(1, 11), 1));
+
+        AnswerJournalCodec.Replay replay = replay(journal);
+
+        assertEquals(2, replay.answers.size());
+        assertEquals(1, replay.answers.get(0).getQuestionId());
+        assertEquals(Integer.valueOf(11), replay.answers.get(0).getSelectedOptionId());
+        // Position follows the last record, the interviewer went back
+        assertEquals(1, replay.nextIndex);
+    }
+
+    @Test
+    public void replay_tornLastFrameKeepsEverythingBefore() throws IOException {
+        byte[] first = AnswerJournalCodec.answerFrame(new Answer(1, 10), 1);
+        byte[] last = AnswerJournalCodec.answerFrame(new Answer(2, "half written"), 2);
+        byte[] complete = journal(first, last);
+
+        // Every cut inside the last frame is a crash mid-write
+        int lastStart = complete.length - last.length;
+        for (int cut = lastStart + 1; cut < complete.length; cut++) {
+            AnswerJournalCodec.Replay replay = replay(Arrays.copyOf(complete, cut));
+
+            assertTrue(replay.matches);
+            assertEquals(lastStart, replay.validLength);
+            assertEquals(1, replay.answers.size());
+            assertEquals(1, replay.nextIndex);
+        }
+    }
+
+    @Test
+    public void replay_corruptFrameStopsReplayThere() throws IOException {
+        byte[] first = AnswerJournalCodec.answerFrame(new Answer(1, 10), 1);
+        byte[] corrupt = AnswerJournalCodec.answerFrame(new Answer(2, 20), 2);
+        byte[] after = AnswerJournalCodec.answerFrame(new Answer(3, 30), 3);
+        byte[] journal = journal(first, corrupt, after);
+
+        // Flip a bit in the middle record's body, its checksum no longer matches
+        int corruptStart = journal.length - after.length - corrupt.length;
+        journal[corruptStart + 2] ^= 0x01;
+
+        AnswerJournalCodec.Replay replay = replay(journal);
+
+        assertTrue(replay.matches);
+        assertEquals(corruptStart, replay.validLength);
+        assertEquals(1, replay.answers.size());
+        assertEquals(1, replay.answers.get(0).getQuestionId());
+    }
+
+    @Test
+    public void replay_corruptLengthIsTreatedAsTorn() throws IOException {
+        byte[] first = AnswerJournalCodec.answerFrame(new Answer(1, 10), 1);
+        byte[] second = AnswerJournalCodec.answerFrame(new Answer(2, 20), 2);
+        byte[] journal = journal(first, second);
+
+        // Length prefix claims more bytes than the file has
+        int secondStart = journal.length - second.length;
+        journal[secondStart] = 0x7F;
+
+        AnswerJournalCodec.Replay replay = replay(journal);
+
+        assertEquals(secondStart, replay.validLength);
+        assertEquals(1, replay.answers.size());
+    }
+
+    @Test
+    public void replay_otherInterviewDoesNotMatch() throws IOException {
+        byte[] journal = journal(AnswerJournalCodec.answerFrame(new Answer(1, 10), 1));
+
+        assertFalse(AnswerJournalCodec.replay(journal, USER, SURVEY, AREA, WARD + 1).matches);
+        assertFalse(AnswerJournalCodec.replay(journal, USER + 1, SURVEY, AREA, WARD).matches);
+    }
+
+    @Test
+    public void replay_missingStartFrameDoesNotMatch() throws IOException {
+        byte[] answersOnly = AnswerJournalCodec.answerFrame(new Answer(1, 10), 1);
+
+        AnswerJournalCodec.Replay replay = replay(answersOnly);
+
+        assertFalse(replay.matches);
+        assertTrue(replay.answers.isEmpty());
+    }
+
+    @Test
+    public void replay_emptyOrTornStartDoesNotMatch() throws IOException {
+        assertFalse(replay(new byte[0]).matches);
+
+        byte[] start = AnswerJournalCodec.startFrame(USER, SURVEY, AREA, WARD);
+        assertFalse(replay(Arrays.copyOf(start, start.length - 1)).matches);
+    }
+
+    @Test
+    public void replay_startOnlyHasNoAnswers() throws IOException {
+        byte[] journal = journal();
+
+        AnswerJournalCodec.Replay replay = replay(journal);
+
+        assertTrue(replay.matches);
+        assertEquals(journal.length, replay.validLength);
+        assertTrue(replay.answers.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void startFrame_rejectsUnselectedIds() throws IOException {
+        // Session ids default to -1; AnswerJournal disables itself before this happens
+        AnswerJournalCodec.startFrame(USER, SURVEY, AREA, -1);
+    }
+
+    private static AnswerJournalCodec.Replay replay(byte[] journal) {
+        return AnswerJournalCodec.replay(journal, USER, SURVEY, AREA, WARD);
+    }
+
+    private static byte[] journal(byte[]... answerFrames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(AnswerJournalCodec.startFrame(USER, SURVEY, AREA, WARD));
+        for (byte[] frame : answerFrames) {
+            out.write(frame);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * AnswerSheet unit tests
+ * Progress counts only the questions the skip logic still asks.
+ * Question i has id 100+i and owns options 10*i+1 and 10*i+2.
+ */
+public class AnswerSheetTest {
+
+    @Test
+    public void newSheet_everyQuestionPending() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, null, null));
+
+        assertEquals(3, sheet.getReachableCount());
+        assertEquals(3, sheet.getUnansweredCount());
+        assertEquals(0, sheet.firstUnanswered());
+        assertEquals(0, sheet.nextReachable(-1));
+        assertFalse(sheet.isComplete());
+        assertTrue(sheet.getAnswers().isEmpty());
+    }
+
+    @Test
+    public void put_outOfOrderJumpsToFirstGap() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, null, null, null));
+        sheet.put(0, new Answer(100, "a"));
+        sheet.put(2, new Answer(102, "c"));
+
+        assertEquals(2, sheet.getUnansweredCount());
+        assertEquals(1, sheet.firstUnanswered());
+
+        sheet.put(1, new Answer(101, "b"));
+        assertEquals(3, sheet.firstUnanswered());
+    }
+
+    @Test
+    public void put_replacingAnAnswerDoesNotCountTwice() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, null));
+        sheet.put(0, new Answer(100, "first"));
+        sheet.put(0, new Answer(100, "second"));
+
+        assertEquals(1, sheet.getUnansweredCount());
+        assertEquals("second", sheet.get(0).getAnswerText());
+        assertEquals(1, sheet.getAnswers().size());
+    }
+
+    @Test
+    public void getAnswers_inQuestionOrder() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, null, null));
+        sheet.put(2, new Answer(102, "c"));
+        sheet.put(0, new Answer(100, "a"));
+        sheet.put(1, new Answer(101, "b"));
+
+        assertTrue(sheet.isComplete());
+        assertEquals(-1, sheet.firstUnanswered());
+        List<Answer> answers = sheet.getAnswers();
+        assertEquals(100, answers.get(0).getQuestionId());
+        assertEquals(101, answers.get(1).getQuestionId());
+        assertEquals(102, answers.get(2).getQuestionId());
+    }
+
+    @Test
+    public void indexOf_mapsQuestionIdsToPositions() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, null, null));
+
+        assertEquals(0, sheet.indexOf(100));
+        assertEquals(2, sheet.indexOf(102));
+        assertEquals(-1, sheet.indexOf(999));
+    }
+
+    @Test
+    public void getReachableNumber_skipsHiddenQuestions() {
+        // 1 and 2 asked only when 0 picks option 1
+        AnswerSheet sheet = new AnswerSheet(questions(null, 1, 1, null));
+
+        assertEquals(1, sheet.getReachableNumber(0));
+        assertEquals(2, sheet.getReachableNumber(3));
+        assertEquals(3, sheet.nextReachable(0));
+
+        sheet.put(0, new Answer(100, 1));
+        assertEquals(2, sheet.getReachableNumber(1));
+        assertEquals(3, sheet.getReachableNumber(2));
+        assertEquals(4, sheet.getReachableNumber(3));
+        assertEquals(1, sheet.nextReachable(0));
+        assertEquals(-1, sheet.nextReachable(3));
+    }
+
+    @Test
+    public void skippedQuestionsAreNotPendingOrSubmitted() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, 1, null));
+        assertEquals(2, sheet.getReachableCount());
+        assertEquals(2, sheet.getUnansweredCount());
+        assertEquals(2, sheet.nextReachable(0));
+
+        sheet.put(0, new Answer(100, 1));
+        assertTrue(sheet.isReachable(1));
+        assertEquals(1, sheet.firstUnanswered());
+        assertEquals(2, sheet.getReachableNumber(1));
+
+        sheet.put(1, new Answer(101, "yes"));
+        sheet.put(2, new Answer(102, "done"));
+        assertTrue(sheet.isComplete());
+        assertEquals(3, sheet.getAnswers().size());
+
+        // Switching the branch keeps the hidden answer, but does not submit it
+        sheet.put(0, new Answer(100, 2));
+        assertFalse(sheet.isReachable(1));
+        assertTrue(sheet.isAnswered(1));
+        assertTrue(sheet.isComplete());
+        assertEquals(2, sheet.getAnswers().size());
+        assertEquals(2, sheet.getReachableNumber(2));
+    }
+
+    @Test
+    public void clear_restoresTheBlankInterview() {
+        AnswerSheet sheet = new AnswerSheet(questions(null, 1));
+        sheet.put(0, new Answer(100, 1));
+        sheet.put(1, new Answer(101, "yes"));
+
+        sheet.clear();
+
+        assertFalse(sheet.isReachable(1));
+        assertFalse(sheet.isAnswered(0));
+        assertEquals(1, sheet.getUnansweredCount());
+        assertEquals(0, sheet.firstUnanswered());
+        assertTrue(sheet.getAnswers().isEmpty());
+    }
+
+    @Test
+    public void emptyQuestionnaire_isComplete() {
+        AnswerSheet sheet = new AnswerSheet(Collections.<Question>emptyList());
+
+        assertTrue(sheet.isComplete());
+        assertEquals(0, sheet.getReachableCount());
+        assertEquals(-1, sheet.firstUnanswered());
+    }
+
+    /**
+     * Build questions 100, 101, ... with the given show_if_option_id each
+     */
+    private static List<Question> questions(Integer... showIfOptionIds) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < showIfOptionIds.length; i++) {
+            List<Option> options = Arrays.asList(new Option(10 * i + 1, "a"), new Option(10 * i + 2, "b"));
+            questions.add(new Question(100 + i, "Q" + i, "single", null,
+                    showIfOptionIds[i], options));
+        }
+        return Collections.unmodifiableList(questions);
+    }
+}
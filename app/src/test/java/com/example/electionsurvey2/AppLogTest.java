@@ -0,0 +1,38 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+/**
+ * AppLog unit tests
+ * Without init() nothing reaches a file, but every entry is still formatted.
+ */
+public class AppLogTest {
+
+    @Test
+    public void flush_survivesArgumentThatCannotBePrinted() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("broken toString");
+            }
+        };
+        AppLog.w("AppLogTest", "value %s", broken);
+        AppLog.flush();
+
+        // The bad entry was consumed, later entries are written as usual
+        AppLog.w("AppLogTest", "after %s", "ok");
+        AppLog.flush();
+    }
+
+    @Test
+    public void flush_survivesThrowableThatCannotBePrinted() {
+        Exception broken = new Exception() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("broken toString");
+            }
+        };
+        AppLog.e("AppLogTest", "failed", broken);
+        AppLog.flush();
+    }
+}
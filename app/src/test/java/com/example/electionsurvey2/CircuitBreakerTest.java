@@ -0,0 +1,162 @@
+package com.example.electionsurvey2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * CircuitBreaker unit tests
+ * Time only moves when a test advances the manual clock.
+ */
+public class CircuitBreakerTest {
+
+    private static final int THRESHOLD = 5;
+    private static final long MIN_OPEN_MS = 5000;
+    private static final long MAX_OPEN_MS = 2 * 60 * 1000;
+
+    private long now;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000;
+        breaker = new CircuitBreaker(() -> now);
+    }
+
+    @Test
+    public void closed_failuresBelowThresholdLetRequestsThrough() throws Exception {
+        fail(THRESHOLD - 1);
+
+        breaker.acquire();
+        assertEquals(0, breaker.getRetryAfterMs());
+    }
+
+    @Test
+    public void closed_successResetsTheFailureCount() throws Exception {
+        fail(THRESHOLD - 1);
+        breaker.onSuccess();
+        fail(THRESHOLD - 1);
+
+        breaker.acquire();
+    }
+
+    @Test
+    public void open_afterThresholdFailsFastUntilCooldownEnds() {
+        fail(THRESHOLD);
+
+        assertEquals(MIN_OPEN_MS, assertOpen());
+        now += MIN_OPEN_MS - 1;
+        assertEquals(1, assertOpen());
+        assertEquals(1, breaker.getRetryAfterMs());
+    }
+
+    @Test
+    public void halfOpen_letsExactlyOneProbeThrough() throws Exception {
+        fail(THRESHOLD);
+        now += MIN_OPEN_MS;
+
+        assertEquals(0, breaker.getRetryAfterMs());
+        breaker.acquire();
+        assertEquals(MIN_OPEN_MS, assertOpen());
+    }
+
+    @Test
+    public void halfOpen_successfulProbeClosesTheCircuit() throws Exception {
+        fail(THRESHOLD);
+        now += MIN_OPEN_MS;
+        breaker.acquire();
+
+        breaker.onSuccess();
+
+        breaker.acquire();
+        breaker.acquire();
+        assertEquals(0, breaker.getRetryAfterMs());
+        // Back to needing the full threshold
+        fail(THRESHOLD - 1);
+        breaker.acquire();
+    }
+
+    @Test
+    public void halfOpen_failedProbeDoublesCooldownUpToMaximum() throws Exception {
+        fail(THRESHOLD);
+        long expected = MIN_OPEN_MS;
+        for (int probe = 0; probe < 8; probe++) {
+            now += expected;
+            breaker.acquire();
+            breaker.onFailure(0);
+
+            expected = Math.min(expected * 2, MAX_OPEN_MS);
+            assertEquals("after failed probe " + (probe + 1), expected, assertOpen());
+        }
+        assertEquals(MAX_OPEN_MS, expected);
+    }
+
+    @Test
+    public void halfOpen_successAfterFailedProbesResetsCooldown() throws Exception {
+        fail(THRESHOLD);
+        now += MIN_OPEN_MS;
+        breaker.acquire();
+        breaker.onFailure(0);
+        now += 2 * MIN_OPEN_MS;
+        breaker.acquire();
+        breaker.onSuccess();
+
+        fail(THRESHOLD);
+        assertEquals(MIN_OPEN_MS, assertOpen());
+    }
+
+    @Test
+    public void halfOpen_releasedProbeCanBeRetried() throws Exception {
+        fail(THRESHOLD);
+        now += MIN_OPEN_MS;
+        breaker.acquire();
+
+        // Cancelled probe: no outcome, the circuit stays half-open
+        breaker.release();
+
+        breaker.acquire();
+        assertEquals(MIN_OPEN_MS, assertOpen());
+    }
+
+    @Test
+    public void retryAfter_opensCircuitOnFirstFailure() {
+        breaker.onFailure(30_000);
+
+        assertEquals(30_000, assertOpen());
+        assertEquals(30_000, breaker.getRetryAfterMs());
+    }
+
+    @Test
+    public void retryAfter_isCappedAtMaximum() {
+        breaker.onFailure(60 * 60 * 1000);
+
+        assertEquals(MAX_OPEN_MS, assertOpen());
+    }
+
+    @Test
+    public void retryAfter_shorterThanCooldownDoesNotShortenIt() {
+        fail(THRESHOLD);
+        breaker.onFailure(1000);
+
+        assertEquals(MIN_OPEN_MS, assertOpen());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(0);
+        }
+    }
+
+    /**
+     * @return Retry-after of the CircuitOpenException thrown by acquire()
+     */
+    private long assertOpen() {
+        try {
+            breaker.acquire();
+        } catch (CircuitBreaker.CircuitOpenException e) {
+            return e.getRetryAfterMs();
+        }
+        throw new AssertionError("Circuit is closed");
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import static org.junit.Assert.*;
+
+/**
+ * RetryPolicy unit tests
+ * Jitter is random, so delay bounds are checked over many samples.
+ */
+public class RetryPolicyTest {
+
+    private static final int SAMPLES = 2000;
+
+    @Test
+    public void delayBeforeRetry_staysUnderExponentialCap() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+        long[] caps = {100, 200, 400, 800, 1000, 1000};
+        for (int retry = 1; retry <= caps.length; retry++) {
+            long max = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                long delay = policy.delayBeforeRetry(retry);
+                assertTrue("retry " + retry + " delay " + delay, delay >= 0 && delay < caps[retry - 1]);
+                max = Math.max(max, delay);
+            }
+            // Full jitter uses the whole range, not just its bottom half
+            assertTrue("retry " + retry + " max " + max, max >= caps[retry - 1] / 2);
+        }
+    }
+
+    @Test
+    public void delayBeforeRetry_largeRetryDoesNotOverflow() {
+        RetryPolicy policy = new RetryPolicy(100, 1000, 8000);
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = policy.delayBeforeRetry(80);
+            assertTrue(delay >= 0 && delay < 8000);
+        }
+    }
+
+    @Test
+    public void delayBeforeRetry_noRetryPolicyNeverWaits() {
+        assertEquals(0, RetryPolicy.NO_RETRY.delayBeforeRetry(1));
+        assertEquals(1, RetryPolicy.NO_RETRY.getMaxAttempts());
+    }
+
+    @Test
+    public void forRequest_referenceDataReadsRetry() {
+        assertSame(RetryPolicy.REFERENCE_DATA, RetryPolicy.forRequest(get(ApiService.SURVEYS)));
+        assertEquals(3, RetryPolicy.REFERENCE_DATA.getMaxAttempts());
+    }
+
+    @Test
+    public void forRequest_loginIsNotReplayed() {
+        assertSame(RetryPolicy.NO_RETRY, RetryPolicy.forRequest(post(ApiService.LOGIN)));
+    }
+
+    @Test
+    public void forRequest_submissionsAreLeftToTheOutbox() {
+        assertSame(RetryPolicy.NO_RETRY, RetryPolicy.forRequest(post(ApiService.SAVE_RESPONSES)));
+        assertSame(RetryPolicy.NO_RETRY, RetryPolicy.forRequest(post(ApiService.SAVE_RESPONSES_BATCH)));
+    }
+
+    @Test
+    public void forRequest_otherRequestsAreNotRetried() {
+        assertSame(RetryPolicy.NO_RETRY, RetryPolicy.forRequest(post("/api/other")));
+        assertSame(RetryPolicy.NO_RETRY, RetryPolicy.forRequest(get("/health")));
+    }
+
+    private static Request get(String path) {
+        return new Request.Builder().url("http://localhost" + path).build();
+    }
+
+    private static Request post(String path) {
+        RequestBody body = RequestBody.create("{}", MediaType.get("application/json"));
+        return new Request.Builder().url("http://localhost" + path).post(body).build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SearchIndex unit tests
+ * Names and queries share one fold, so Latin and Devanagari spellings of a
+ * name must find each other in either direction.
+ */
+public class SearchIndexTest {
+
+    // Shivaji Nagar and Baner written in Devanagari
+    private static final String SHIVAJI_NAGAR_DEVANAGARI = "\u0936\u093f\u0935\u093e\u091c\u0940 \u0928\u0917\u0930";
+    private static final String BANER_DEVANAGARI = "\u092c\u093e\u0923\u0947\u0930";
+
+    private static final List<String> NAMES = Arrays.asList(
+            "Kothrud",                  // 0
+            "Karve Nagar",              // 1
+            SHIVAJI_NAGAR_DEVANAGARI,   // 2
+            "Baner",                    // 3
+            "Nerul",                    // 4
+            "Ward 12");                 // 5
+
+    @Test
+    public void fold_mergesCaseScriptAndSpellingVariants() {
+        assertEquals("sivaji nagar", fold("Shivaji Nagar"));
+        assertEquals("sivaji nagar", fold("SHIVAJI  nagar!"));
+        assertEquals("sivaji nagar", fold(SHIVAJI_NAGAR_DEVANAGARI));
+        assertEquals("baner", fold(BANER_DEVANAGARI));
+        assertEquals("vadgaon bosari", fold("Wadgaon-Bhosari"));
+        assertEquals("cafe", fold("Caf\u00e9"));
+        assertEquals("12", fold("\u0967\u0968"));
+    }
+
+    @Test
+    public void fold_onlySeparatorsIsEmpty() {
+        assertEquals("", fold(""));
+        assertEquals("", fold("  -, . "));
+        assertEquals("", fold("\u0964"));
+    }
+
+    @Test
+    public void search_emptyQueryListsEverythingInOrder() {
+        SearchIndex index = new SearchIndex(NAMES);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, search(index, ""));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, search(index, " ,. "));
+    }
+
+    @Test
+    public void search_prefixMatchesWordsInListOrder() {
+        SearchIndex index = new SearchIndex(NAMES);
+        assertArrayEquals(new int[]{1, 2}, search(index, "nag"));
+        assertArrayEquals(new int[]{0, 1}, search(index, "K"));
+    }
+
+    @Test
+    public void search_prefixMatchesComeBeforeMatchesInsideWords() {
+        SearchIndex index = new SearchIndex(NAMES);
+        // "Nerul" starts with the query, "Baner" only contains it
+        assertArrayEquals(new int[]{4, 3}, search(index, "ner"));
+    }
+
+    @Test
+    public void search_shortQueryDoesNotMatchInsideWords() {
+        SearchIndex index = new SearchIndex(NAMES);
+        assertArrayEquals(new int[]{4}, search(index, "ne"));
+    }
+
+    @Test
+    public void search_latinQueryFindsDevanagariName() {
+        SearchIndex index = new SearchIndex(NAMES);
+        assertArrayEquals(new int[]{2}, search(index, "Shiv"));
+        assertArrayEquals(new int[]{2}, search(index, "sivaji"));
+    }
+
+    @Test
+    public void search_devanagariQueryFindsLatinName() {
+        SearchIndex index = new SearchIndex(NAMES);
+        // Baner typed in Devanagari
+        assertArrayEquals(new int[]{3}, search(index, BANER_DEVANAGARI));
+        // Devanagari digits 1 and 2
+        assertArrayEquals(new int[]{5}, search(index, "\u0967\u0968"));
+    }
+
+    @Test
+    public void search_mixedScriptQueryNeedsEveryWord() {
+        SearchIndex index = new SearchIndex(NAMES);
+        // "Shiva" in Devanagari, "nagar" in Latin
+        assertArrayEquals(new int[]{2}, search(index, "\u0936\u093f\u0935\u093e nagar"));
+        // Word order does not matter
+        assertArrayEquals(new int[]{2}, search(index, "nagar \u0936\u093f\u0935\u093e"));
+        // "Karve" and "Shivaji" are never in one name
+        assertArrayEquals(new int[0], search(index, "karve \u0936\u093f\u0935\u093e"));
+    }
+
+    @Test
+    public void search_unknownWordMatchesNothing() {
+        SearchIndex index = new SearchIndex(NAMES);
+        assertArrayEquals(new int[0], search(index, "xyz"));
+        assertArrayEquals(new int[0], search(index, "nagar xyz"));
+    }
+
+    @Test
+    public void search_reusedBuffersDoNotLeakBetweenQueries() {
+        SearchIndex index = new SearchIndex(NAMES);
+        int[] first = search(index, "nag");
+        search(index, "ner");
+        search(index, "");
+        search(index, "xyz");
+        assertArrayEquals(first, search(index, "nag"));
+    }
+
+    @Test
+    public void search_emptyIndex() {
+        SearchIndex index = new SearchIndex(Collections.<String>emptyList());
+        assertEquals(0, index.size());
+        assertArrayEquals(new int[0], search(index, ""));
+        assertArrayEquals(new int[0], search(index, "nagar"));
+    }
+
+    private static String fold(String text) {
+        StringBuilder out = new StringBuilder();
+        SearchIndex.fold(text, out);
+        return out.toString();
+    }
+
+    private static int[] search(SearchIndex index, String query) {
+        int[] matches = new int[index.size()];
+        int count = index.search(query, matches);
+        return Arrays.copyOf(matches, count);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SkipLogic unit tests
+ * Questions are numbered by position; question i owns options 10*i+1 and 10*i+2.
+ */
+public class SkipLogicTest {
+
+    @Test
+    public void noRules_everyQuestionReachable() {
+        List<Question> questions = questions(null, null, null);
+        SkipLogic skipLogic = new SkipLogic(questions);
+
+        BitSet reachable = new BitSet();
+        skipLogic.evaluateAll(new Answer[3], reachable);
+
+        assertFalse(skipLogic.hasRules());
+        assertEquals(3, reachable.cardinality());
+    }
+
+    @Test
+    public void evaluateAll_hidesQuestionsUntilTheirOptionIsChosen() {
+        // 1 asked when 0 picks option 1; 2 asked when 1 picks option 11
+        List<Question> questions = questions(null, 1, 11);
+        SkipLogic skipLogic = new SkipLogic(questions);
+        Answer[] answers = new Answer[3];
+        BitSet reachable = new BitSet();
+
+        skipLogic.evaluateAll(answers, reachable);
+        assertTrue(skipLogic.hasRules());
+        assertEquals(bits(0), reachable);
+
+        answers[0] = new Answer(100, 1);
+        answers[1] = new Answer(101, 11);
+        skipLogic.evaluateAll(answers, reachable);
+        assertEquals(bits(0, 1, 2), reachable);
+    }
+
+    @Test
+    public void update_flipsDependentsTransitively() {
+        List<Question> questions = questions(null, 1, 11, null);
+        SkipLogic skipLogic = new SkipLogic(questions);
+        Answer[] answers = new Answer[4];
+        BitSet reachable = new BitSet();
+        skipLogic.evaluateAll(answers, reachable);
+
+        answers[0] = new Answer(100, 1);
+        skipLogic.update(0, answers, reachable);
+        assertEquals(bits(0, 1, 3), reachable);
+
+        answers[1] = new Answer(101, 11);
+        skipLogic.update(1, answers, reachable);
+        assertEquals(bits(0, 1, 2, 3), reachable);
+
+        // Changing the root answer hides the whole chain, even though 1 still holds option 11
+        answers[0] = new Answer(100, 2);
+        skipLogic.update(0, answers, reachable);
+        assertEquals(bits(0, 3), reachable);
+    }
+
+    @Test
+    public void update_matchesFullEvaluation() {
+        // Two branches off question 0 and a chain under each
+        List<Question> questions = questions(null, 1, 2, 11, 21, null, 31);
+        SkipLogic skipLogic = new SkipLogic(questions);
+        Answer[] answers = new Answer[questions.size()];
+        BitSet incremental = new BitSet();
+        skipLogic.evaluateAll(answers, incremental);
+
+        int[][] steps = {{0, 1}, {1, 11}, {3, 31}, {0, 2}, {2, 21}, {0, 1}, {1, 12}, {0, 2}};
+        for (int[] step : steps) {
+            int position = step[0];
+            answers[position] = new Answer(100 + position, step[1]);
+            skipLogic.update(position, answers, incremental);
+
+            BitSet full = new BitSet();
+            skipLogic.evaluateAll(answers, full);
+            assertEquals("after answering " + Arrays.toString(step), full, incremental);
+        }
+    }
+
+    @Test
+    public void update_multipleChoiceControllerChecksEverySelection() {
+        List<Question> questions = questions(null, 2);
+        SkipLogic skipLogic = new SkipLogic(questions);
+        Answer[] answers = new Answer[2];
+        BitSet reachable = new BitSet();
+        skipLogic.evaluateAll(answers, reachable);
+
+        answers[0] = new Answer(100, new int[]{1, 2});
+        skipLogic.update(0, answers, reachable);
+        assertTrue(reachable.get(1));
+
+        answers[0] = new Answer(100, new int[]{1});
+        skipLogic.update(0, answers, reachable);
+        assertFalse(reachable.get(1));
+    }
+
+    @Test
+    public void unknownOption_questionIsAlwaysAsked() {
+        List<Question> questions = questions(null, 999);
+        SkipLogic skipLogic = new SkipLogic(questions);
+
+        BitSet reachable = new BitSet();
+        skipLogic.evaluateAll(new Answer[2], reachable);
+
+        assertFalse(skipLogic.hasRules());
+        assertEquals(bits(0, 1), reachable);
+    }
+
+    @Test
+    public void forwardAndCyclicRules_areDroppedSoTheGraphStaysAcyclic() {
+        // 0 points at an option of 1 and 1 points back at 0: only the backward rule is kept
+        // 2 points at its own option
+        List<Question> questions = questions(11, 1, 21);
+        SkipLogic skipLogic = new SkipLogic(questions);
+        Answer[] answers = new Answer[3];
+        BitSet reachable = new BitSet();
+        skipLogic.evaluateAll(answers, reachable);
+
+        assertEquals(bits(0, 2), reachable);
+
+        answers[0] = new Answer(100, 1);
+        skipLogic.update(0, answers, reachable);
+        assertEquals(bits(0, 1, 2), reachable);
+
+        // Answering the dependent does not feed back into its controller
+        answers[1] = new Answer(101, 12);
+        skipLogic.update(1, answers, reachable);
+        assertEquals(bits(0, 1, 2), reachable);
+    }
+
+    /**
+     * Build questions 100, 101, ... with the given show_if_option_id each
+     */
+    private static List<Question> questions(Integer... showIfOptionIds) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < showIfOptionIds.length; i++) {
+            List<Option> options = Arrays.asList(new Option(10 * i + 1, "a"), new Option(10 * i + 2, "b"));
+            questions.add(new Question(100 + i, "Q" + i, "single", null,
+                    showIfOptionIds[i], options));
+        }
+        return Collections.unmodifiableList(questions);
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.electionsurvey2;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * SurveyPayloadCodec unit tests
+ * Payloads are decoded with a port of backend/middleware/surveyCodec.js, the
+ * server's reader, so a change on either side that breaks the wire format fails here.
+ */
+public class SurveyPayloadCodecTest {
+
+    private static final String SUBMISSION_ID = "123e4567-e89b-12d3-a456-426614174000";
+
+    // Latin with a macron and Devanagari: two- and three-byte UTF-8 sequences
+    private static final String MIXED_TEXT = "N\u0101m \u0928\u093e\u092e";
+
+    // samplePayload() as encoded by the app, checked once against decodeSurvey() in the backend
+    private static final String SAMPLE_HEX = "535202"
+            + "123e4567e89b12d3a456426614174000"
+            + "07" + "01" + "ac02" + "0c"
+            + "03"
+            + "01" + "00" + "0e" + "4ec4816d20e0a4a8e0a4bee0a4ae"
+            + "02" + "01" + "8101"
+            + "03" + "02" + "02" + "04" + "c801";
+
+    @Test
+    public void encode_matchesBackendWireFormat() throws JSONException {
+        byte[] encoded = SurveyPayloadCodec.encode(samplePayload());
+        assertEquals(SAMPLE_HEX, hex(encoded));
+    }
+
+    @Test
+    public void encode_roundTripsThroughBackendDecoder() throws Exception {
+        JSONObject payload = samplePayload();
+        JSONObject decoded = ReferenceDecoder.decodeSurvey(SurveyPayloadCodec.encode(payload));
+        assertSameSurvey(payload, decoded);
+    }
+
+    @Test
+    public void encode_version1LayoutIsVersion2WithoutSubmissionId() throws Exception {
+        byte[] v2 = SurveyPayloadCodec.encode(samplePayload());
+        assertEquals(2, v2[2]);
+
+        // A version 1 client wrote the same bytes without the 16-byte id
+        byte[] v1 = new byte[v2.length - 16];
+        v1[0] = 'S';
+        v1[1] = 'R';
+        v1[2] = 1;
+        System.arraycopy(v2, 19, v1, 3, v2.length - 19);
+
+        JSONObject decoded = ReferenceDecoder.decodeSurvey(v1);
+        assertFalse(decoded.has("submission_id"));
+        JSONObject expected = samplePayload();
+        expected.remove("submission_id");
+        assertSameSurvey(expected, decoded);
+    }
+
+    @Test
+    public void encodeBatch_roundTripsEverySurvey() throws Exception {
+        JSONObject first = samplePayload();
+        JSONObject second = samplePayload()
+                .put("submission_id", "00000000-0000-0000-0000-000000000001")
+                .put("user_id", Integer.MAX_VALUE)
+                .put("answers", new JSONArray());
+
+        JSONArray decoded = ReferenceDecoder.decodeBatch(
+                SurveyPayloadCodec.encodeBatch(Arrays.asList(first, second)));
+
+        assertEquals(2, decoded.length());
+        assertSameSurvey(first, decoded.getJSONObject(0));
+        assertSameSurvey(second, decoded.getJSONObject(1));
+    }
+
+    @Test
+    public void encode_prefersMultipleThenSingleThenText() throws Exception {
+        JSONObject answer = new JSONObject()
+                .put("question_id", 9)
+                .put("answer_text", "ignored")
+                .put("selected_option_id", 5)
+                .put("selected_option_ids", new JSONArray().put(6));
+        JSONObject payload = samplePayload().put("answers", new JSONArray().put(answer));
+
+        JSONObject decoded = ReferenceDecoder.decodeSurvey(SurveyPayloadCodec.encode(payload))
+                .getJSONArray("answers").getJSONObject(0);
+        assertEquals(6, decoded.getJSONArray("selected_option_ids").getInt(0));
+        assertFalse(decoded.has("selected_option_id"));
+        assertFalse(decoded.has("answer_text"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsNegativeIds() throws JSONException {
+        // Unselected ward in the session
+        SurveyPayloadCodec.encode(samplePayload().put("ward_id", -1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsMalformedSubmissionId() throws JSONException {
+        SurveyPayloadCodec.encode(samplePayload().put("submission_id", "not-a-uuid"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void encode_requiresSubmissionId() throws JSONException {
+        JSONObject payload = samplePayload();
+        payload.remove("submission_id");
+        SurveyPayloadCodec.encode(payload);
+    }
+
+    private static JSONObject samplePayload() throws JSONException {
+        JSONArray answers = new JSONArray()
+                .put(new JSONObject().put("question_id", 1).put("answer_text", MIXED_TEXT))
+                .put(new JSONObject().put("question_id", 2).put("selected_option_id", 129))
+                .put(new JSONObject().put("question_id", 3)
+                        .put("selected_option_ids", new JSONArray().put(4).put(200)));
+        return new JSONObject()
+                .put("submission_id", SUBMISSION_ID)
+                .put("user_id", 7)
+                .put("survey_id", 1)
+                .put("area_id", 300)
+                .put("ward_id", 12)
+                .put("answers", answers);
+    }
+
+    private static void assertSameSurvey(JSONObject expected, JSONObject actual) throws JSONException {
+        assertEquals(expected.optString("submission_id", null), actual.optString("submission_id", null));
+        for (String key : new String[]{"user_id", "survey_id", "area_id", "ward_id"}) {
+            assertEquals(key, expected.getInt(key), actual.getInt(key));
+        }
+        JSONArray expectedAnswers = expected.getJSONArray("answers");
+        JSONArray actualAnswers = actual.getJSONArray("answers");
+        assertEquals(expectedAnswers.length(), actualAnswers.length());
+        for (int i = 0; i < expectedAnswers.length(); i++) {
+            JSONObject expectedAnswer = expectedAnswers.getJSONObject(i);
+            JSONObject actualAnswer = actualAnswers.getJSONObject(i);
+            assertEquals(expectedAnswer.getInt("question_id"), actualAnswer.getInt("question_id"));
+            assertEquals(expectedAnswer.optString("answer_text", null), actualAnswer.optString("answer_text", null));
+            assertEquals(expectedAnswer.optInt("selected_option_id", -1), actualAnswer.optInt("selected_option_id", -1));
+            assertArrayEquals(optionIds(expectedAnswer), optionIds(actualAnswer));
+        }
+    }
+
+    private static int[] optionIds(JSONObject answer) throws JSONException {
+        JSONArray ids = answer.optJSONArray("selected_option_ids");
+        if (ids == null) {
+            return null;
+        }
+        int[] values = new int[ids.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ids.getInt(i);
+        }
+        return values;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format(Locale.US, "%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Port of backend/middleware/surveyCodec.js, kept line for line with the server
+     */
+    private static final class ReferenceDecoder {
+        private static final int VERSION = 2;
+        private static final int MIN_VERSION = 1;
+
+        private final ByteArrayInputStream in;
+
+        private ReferenceDecoder(byte[] buffer) {
+            this.in = new ByteArrayInputStream(buffer);
+        }
+
+        static JSONObject decodeSurvey(byte[] buffer) throws IOException, JSONException {
+            ReferenceDecoder reader = new ReferenceDecoder(buffer);
+            int version = reader.readHeader();
+            JSONObject survey = reader.readSurvey(version);
+            assertEquals("trailing bytes", 0, reader.in.available());
+            return survey;
+        }
+
+        static JSONArray decodeBatch(byte[] buffer) throws IOException, JSONException {
+            ReferenceDecoder reader = new ReferenceDecoder(buffer);
+            int version = reader.readHeader();
+            long count = reader.varint();
+            JSONArray surveys = new JSONArray();
+            for (int i = 0; i < count; i++) {
+                surveys.put(reader.readSurvey(version));
+            }
+            assertEquals("trailing bytes", 0, reader.in.available());
+            return surveys;
+        }
+
+        private int readHeader() throws IOException {
+            if (readByte() != 'S' || readByte() != 'R') {
+                throw new IOException("Bad magic");
+            }
+            int version = readByte();
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            return version;
+        }
+
+        private JSONObject readSurvey(int version) throws IOException, JSONException {
+            JSONObject survey = new JSONObject();
+            if (version >= 2) {
+                survey.put("submission_id", formatUuid(bytes(16)));
+            }
+            survey.put("user_id", varint());
+            survey.put("survey_id", varint());
+            survey.put("area_id", varint());
+            survey.put("ward_id", varint());
+            JSONArray answers = new JSONArray();
+            long count = varint();
+            for (int i = 0; i < count; i++) {
+                answers.put(readAnswer());
+            }
+            survey.put("answers", answers);
+            return survey;
+        }
+
+        private JSONObject readAnswer() throws IOException, JSONException {
+            JSONObject answer = new JSONObject().put("question_id", varint());
+            int tag = readByte();
+            switch (tag) {
+                case 0:
+                    return answer.put("answer_text", new String(bytes((int) varint()), StandardCharsets.UTF_8));
+                case 1:
+                    return answer.put("selected_option_id", varint());
+                case 2:
+                    JSONArray ids = new JSONArray();
+                    long count = varint();
+                    for (int i = 0; i < count; i++) {
+                        ids.put(varint());
+                    }
+                    return answer.put("selected_option_ids", ids);
+                default:
+                    throw new IOException("Unknown answer tag " + tag);
+            }
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of payload");
+            }
+            return b;
+        }
+
+        // Unsigned LEB128, up to 32 bits, as on the server
+        private long varint() throws IOException {
+            long value = 0;
+            long multiplier = 1;
+            for (int i = 0; i < 5; i++) {
+                int b = readByte();
+                value += (b & 0x7F) * multiplier;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                multiplier *= 128;
+            }
+            throw new IOException("Varint too long");
+        }
+
+        private byte[] bytes(int length) throws IOException {
+            if (length > in.available()) {
+                throw new EOFException("Unexpected end of payload");
+            }
+            byte[] value = new byte[length];
+            in.read(value, 0, length);
+            return value;
+        }
+
+        private static String formatUuid(byte[] bytes) {
+            String hex = hex(bytes);
+            return hex.substring(0, 8) + "-" + hex.substring(8, 12) + "-" + hex.substring(12, 16)
+                    + "-" + hex.substring(16, 20) + "-" + hex.substring(20);
+        }
+    }
+}
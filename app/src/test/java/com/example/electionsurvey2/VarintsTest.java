@@ -0,0 +1,112 @@
+package com.example.electionsurvey2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Varints unit tests
+ * Boundaries of the unsigned LEB128 encoding shared by the wire and on-disk formats.
+ */
+public class VarintsTest {
+
+    @Test
+    public void write_zeroIsOneByte() throws IOException {
+        assertArrayEquals(new byte[]{0x00}, encode(0));
+    }
+
+    @Test
+    public void write_127IsLastOneByteValue() throws IOException {
+        assertArrayEquals(new byte[]{0x7F}, encode(127));
+    }
+
+    @Test
+    public void write_128NeedsContinuationByte() throws IOException {
+        assertArrayEquals(new byte[]{(byte) 0x80, 0x01}, encode(128));
+    }
+
+    @Test
+    public void write_maxIntIsFiveBytes() throws IOException {
+        assertArrayEquals(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                encode(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void roundTrip_boundaries() throws IOException {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, 1L << 32, Long.MAX_VALUE};
+        for (long value : values) {
+            assertEquals(value, Varints.read(new ByteArrayInputStream(encode(value))));
+        }
+    }
+
+    @Test
+    public void roundTrip_consecutiveValuesReadInOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Varints.write(out, 300);
+        Varints.write(out, 0);
+        Varints.write(out, Integer.MAX_VALUE);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(300, Varints.read(in));
+        assertEquals(0, Varints.read(in));
+        assertEquals(Integer.MAX_VALUE, Varints.read(in));
+        assertEquals(0, in.available());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_rejectsMinusOne() throws IOException {
+        encode(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_rejectsMinInt() throws IOException {
+        encode(Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void write_negativeValueWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Varints.write(out, -5);
+            fail("Negative value was encoded");
+        } catch (IllegalArgumentException | IOException e) {
+            assertEquals(0, out.size());
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void read_truncatedValueThrows() throws IOException {
+        Varints.read(new ByteArrayInputStream(new byte[]{(byte) 0x80}));
+    }
+
+    @Test(expected = EOFException.class)
+    public void read_emptyInputThrows() throws IOException {
+        Varints.read(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    public void read_overlongValueThrows() {
+        byte[] overlong = new byte[10];
+        Arrays.fill(overlong, (byte) 0x80);
+        try {
+            Varints.read(new ByteArrayInputStream(overlong));
+            fail("Overlong varint was accepted");
+        } catch (EOFException e) {
+            fail("Overlong varint reported as truncated");
+        } catch (IOException e) {
+            assertEquals("Varint too long", e.getMessage());
+        }
+    }
+
+    private static byte[] encode(long value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Varints.write(out, value);
+        return out.toByteArray();
+    }
+}
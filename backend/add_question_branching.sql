@@ -0,0 +1,18 @@
+-- Add skip logic to survey questions
+-- Run once on existing databases (new installs get it from database_setup.sql).
+-- The API detects the column automatically; until it exists every question
+-- is asked. A question with show_if_option_id is only asked when that option
+-- of an earlier question in the same survey was chosen.
+
+USE election_survey;
+
+ALTER TABLE questions
+    ADD COLUMN show_if_option_id INT NULL
+    AFTER field_type;
+
+-- Example: only ask for suggestions when the respondent answered
+-- "Do not support" to the policies question
+-- UPDATE questions SET show_if_option_id = 8 WHERE id = 6;
+
+-- Check the result
+SELECT id, question_text, type, show_if_option_id FROM questions ORDER BY survey_id, id;
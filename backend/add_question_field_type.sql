@@ -0,0 +1,21 @@
+-- Add an explicit input type to survey questions
+-- Run once on existing databases (new installs get it from database_setup.sql).
+-- The API detects the column automatically; until it exists the app keeps
+-- inferring input rules from keywords in the question text.
+
+USE election_survey;
+
+ALTER TABLE questions
+    ADD COLUMN field_type ENUM('text', 'name', 'age', 'phone', 'email', 'number') NULL
+    AFTER type;
+
+-- Tag text questions whose wording the app used to guess from
+UPDATE questions SET field_type = 'email'
+WHERE type = 'text' AND question_text LIKE '%email%';
+
+UPDATE questions SET field_type = 'phone'
+WHERE type = 'text' AND field_type IS NULL
+  AND (question_text LIKE '%mobile%' OR question_text LIKE '%phone%');
+
+-- Check the result
+SELECT id, question_text, type, field_type FROM questions ORDER BY survey_id, id;
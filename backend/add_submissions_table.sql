@@ -0,0 +1,18 @@
+-- Add replay protection for survey uploads
+-- Run once on existing databases (new installs get it from database_setup.sql).
+-- The API detects the table automatically. Once it exists, an upload that
+-- carries a submission_id already saved is acknowledged without inserting
+-- its answers again, so the app can safely retry uploads that timed out.
+
+USE election_survey;
+
+CREATE TABLE IF NOT EXISTS submissions (
+    submission_id CHAR(36) PRIMARY KEY,
+    user_id INT NOT NULL,
+    survey_id INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_submissions_created (created_at)
+);
+
+-- Check the result
+SHOW COLUMNS FROM submissions;
@@ -0,0 +1,21 @@
+-- Add the survey catalog table
+-- Run once on existing databases (new installs get it from database_setup.sql).
+-- The API detects the table automatically; until it exists GET /api/surveys
+-- lists every survey_id found in questions with a generic title.
+
+USE election_survey;
+
+CREATE TABLE IF NOT EXISTS surveys (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    title VARCHAR(150) NOT NULL,
+    description VARCHAR(255) NULL,
+    is_active TINYINT(1) NOT NULL DEFAULT 1,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- One row per questionnaire already in use; rename them afterwards
+INSERT IGNORE INTO surveys (id, title)
+SELECT DISTINCT survey_id, CONCAT('Survey ', survey_id) FROM questions;
+
+-- Check the result
+SELECT id, title, is_active FROM surveys ORDER BY id;
@@ -1,4 +1,5 @@
 import { getAllAreas } from '../models/areaModel.js';
+import { sendCacheable } from '../middleware/httpCache.js';
 
 /**
  * Get all areas controller
@@ -10,7 +11,7 @@ export async function getAreas(req, res, next) {
   try {
     const rows = await getAllAreas();
     
-    return res.status(200).json({
+    return sendCacheable(req, res, {
       success: true,
       data: rows
     });
@@ -38,11 +38,196 @@ function writeLog(message) {
   }
 }
 
-export const saveResponses = async (req, res, next) => {
-  const { user_id, survey_id, area_id, ward_id, answers } = req.body;
+// Largest batch accepted by saveResponsesBatch
+const MAX_BATCH_SIZE = 200;
+
+// MySQL errors caused by the survey's own data. Anything else (lock wait
+// timeouts, deadlocks, lost connections) is transient and must be retried.
+const DATA_ERROR_CODES = new Set([
+  'ER_NO_REFERENCED_ROW_2',
+  'ER_BAD_NULL_ERROR',
+  'ER_DATA_TOO_LONG',
+  'ER_TRUNCATED_WRONG_VALUE',
+  'ER_TRUNCATED_WRONG_VALUE_FOR_FIELD',
+  'ER_WARN_DATA_OUT_OF_RANGE',
+  'ER_DUP_ENTRY'
+]);
+
+/**
+ * Thrown when a submission is malformed and will never save as sent
+ */
+class InvalidSurveyError extends Error {}
+
+/**
+ * Check whether a save failed because of the submission itself
+ * @param {Error} error - Error thrown while saving
+ * @returns {boolean} True if retrying the same survey cannot succeed
+ */
+function isRejection(error) {
+  return error instanceof InvalidSurveyError || DATA_ERROR_CODES.has(error.code);
+}
+
+// Name of the option column in the responses table, resolved once per process
+let optionColumnPromise = null;
+
+/**
+ * Find which option column the responses table actually uses
+ * @param {Object} connection - MySQL connection
+ * @returns {Promise<string>} Column name
+ */
+function resolveOptionColumn(connection) {
+  if (!optionColumnPromise) {
+    optionColumnPromise = connection.execute('SHOW COLUMNS FROM responses')
+      .then(([columns]) => {
+        const columnNames = columns.map(col => col.Field);
+        return columnNames.find(col =>
+          col.toLowerCase() === 'selected_option_id' ||
+          col.toLowerCase() === 'answered_option_id' ||
+          col.toLowerCase() === 'option_id'
+        ) || 'selected_option_id'; // fallback
+      })
+      .catch(error => {
+        optionColumnPromise = null;
+        throw error;
+      });
+  }
+  return optionColumnPromise;
+}
+
+// Whether the submissions dedupe table exists, resolved once per process
+let submissionsTablePromise = null;
+
+// Client-generated idempotency key, a UUID in canonical text form
+const SUBMISSION_ID_PATTERN = /^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/i;
+
+/**
+ * Check for the submissions table, see add_submissions_table.sql
+ * Without it submissions are saved as before, with no replay protection.
+ * @param {Object} connection - MySQL connection
+ * @returns {Promise<boolean>} True if the table exists
+ */
+function hasSubmissionsTable(connection) {
+  if (!submissionsTablePromise) {
+    submissionsTablePromise = connection.execute("SHOW TABLES LIKE 'submissions'")
+      .then(([rows]) => rows.length > 0)
+      .catch(error => {
+        submissionsTablePromise = null;
+        throw error;
+      });
+  }
+  return submissionsTablePromise;
+}
+
+/**
+ * Check that a survey submission has all required fields
+ * submission_id is optional so older app versions keep working.
+ * @param {Object} survey - Submission body
+ * @returns {boolean} True if valid
+ */
+function isValidSurvey(survey) {
+  if (!survey) return false;
+  const { submission_id, user_id, survey_id, area_id, ward_id, answers } = survey;
+  if (submission_id !== undefined && submission_id !== null &&
+      !(typeof submission_id === 'string' && SUBMISSION_ID_PATTERN.test(submission_id))) {
+    return false;
+  }
+  return Boolean(user_id && survey_id && area_id && ward_id && Array.isArray(answers));
+}
+
+/**
+ * Claim a submission id so a replayed upload is not saved twice
+ * Must run inside the caller's transaction: the claim commits or rolls back
+ * together with the answers. A concurrent upload of the same id waits on
+ * the row lock and then sees it as a duplicate.
+ * @param {Object} connection - MySQL connection
+ * @param {Object} survey - Validated submission body
+ * @returns {Promise<boolean>} True if this id was already saved
+ */
+async function claimSubmission(connection, survey) {
+  const { submission_id, user_id, survey_id } = survey;
+  if (!submission_id || !await hasSubmissionsTable(connection)) {
+    return false;
+  }
+  const [result] = await connection.execute(
+    'INSERT IGNORE INTO submissions (submission_id, user_id, survey_id) VALUES (?, ?, ?)',
+    [submission_id.toLowerCase(), user_id, survey_id]
+  );
+  return result.affectedRows === 0;
+}
+
+/**
+ * Insert all answers of one survey submission
+ * Must run inside a transaction owned by the caller
+ * @param {Object} connection - MySQL connection
+ * @param {Object} survey - Validated submission body
+ */
+async function insertSurveyAnswers(connection, survey) {
+  const { user_id, survey_id, area_id, ward_id, answers } = survey;
+
+  writeLog(`=== NEW SURVEY SUBMISSION ===`);
+  writeLog(`Saving ${answers.length} answers for user ${user_id}, survey ${survey_id}, area ${area_id}, ward ${ward_id}`);
+
+  const optionColumn = await resolveOptionColumn(connection);
+  writeLog(`  -> Using column name: ${optionColumn}`);
 
+  for (const ans of answers) {
+    const { question_id, answer_text, selected_option_id, selected_option_ids } = ans;
+
+    if (!question_id) {
+      writeLog(`WARNING: Skipping answer with missing question_id: ${JSON.stringify(ans)}`);
+      continue;
+    }
+
+    writeLog(`Processing answer for question ${question_id}:`);
+    writeLog(`  - Raw answer object: ${JSON.stringify(ans)}`);
+    writeLog(`  - answer_text: ${answer_text !== undefined ? answer_text : 'undefined'} (type: ${typeof answer_text})`);
+    writeLog(`  - selected_option_id: ${selected_option_id !== undefined ? selected_option_id : 'undefined'} (type: ${typeof selected_option_id})`);
+    writeLog(`  - selected_option_ids: ${selected_option_ids !== undefined ? (Array.isArray(selected_option_ids) ? selected_option_ids.length + ' items' : selected_option_ids) : 'undefined'}`);
+
+    // CASE 1: multiple-choice (checkbox) - check this first
+    if (Array.isArray(selected_option_ids) && selected_option_ids.length > 0) {
+      writeLog(`  -> Multiple choice: ${selected_option_ids.length} options selected`);
+      for (const opt of selected_option_ids) {
+        await connection.execute(
+          `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
+           VALUES (?, ?, ?, ?, ?, ?, NULL)`,
+          [user_id, survey_id, area_id, ward_id, question_id, opt]
+        );
+        writeLog(`    ✓ Saved option_id: ${opt}`);
+      }
+    }
+    // CASE 2: single choice (radio button) - check this BEFORE text to prioritize options
+    else if (selected_option_id !== undefined && selected_option_id !== null && selected_option_id !== '' && Number(selected_option_id) > 0) {
+      writeLog(`  -> Single choice: option_id ${selected_option_id}`);
+      await connection.execute(
+        `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
+         VALUES (?, ?, ?, ?, ?, ?, NULL)`,
+        [user_id, survey_id, area_id, ward_id, question_id, Number(selected_option_id)]
+      );
+      writeLog(`    ✓ Saved option_id: ${selected_option_id}`);
+    }
+    // CASE 3: text answer - check if answer_text exists and is not empty
+    else if (answer_text !== undefined && answer_text !== null && answer_text !== '' && String(answer_text).trim() !== '') {
+      writeLog(`  -> Text answer: "${answer_text}"`);
+      await connection.execute(
+        `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
+         VALUES (?, ?, ?, ?, ?, NULL, ?)`,
+        [user_id, survey_id, area_id, ward_id, question_id, String(answer_text).trim()]
+      );
+      writeLog(`    ✓ Saved text answer`);
+    }
+    // CASE 4: Invalid answer (should not happen)
+    else {
+      writeLog(`  -> ERROR: Invalid answer format for question ${question_id}`);
+      writeLog(`     Full answer object: ${JSON.stringify(ans, null, 2)}`);
+      throw new InvalidSurveyError(`Invalid answer format for question ${question_id}. Answer must have either answer_text, selected_option_id, or selected_option_ids.`);
+    }
+  }
+}
+
+export const saveResponses = async (req, res, next) => {
   // Validate required fields
-  if (!user_id || !survey_id || !area_id || !ward_id || !Array.isArray(answers)) {
+  if (!isValidSurvey(req.body)) {
     return res.status(400).json({
       success: false,
       message: "Missing required fields"
@@ -54,82 +239,125 @@ export const saveResponses = async (req, res, next) => {
   try {
     await connection.beginTransaction();
 
-    writeLog(`=== NEW SURVEY SUBMISSION ===`);
-    writeLog(`Saving ${answers.length} answers for user ${user_id}, survey ${survey_id}, area ${area_id}, ward ${ward_id}`);
+    // A retry of an upload that already committed is acknowledged without saving again
+    if (await claimSubmission(connection, req.body)) {
+      await connection.commit();
+      writeLog(`Duplicate submission ${req.body.submission_id} acknowledged`);
+      return res.json({
+        success: true,
+        message: "Responses already saved",
+        data: { duplicate: true }
+      });
+    }
 
-    for (const ans of answers) {
-      const { question_id, answer_text, selected_option_id, selected_option_ids } = ans;
+    await insertSurveyAnswers(connection, req.body);
+
+    await connection.commit();
+
+    writeLog(`✓ All responses saved successfully!`);
+    writeLog(`=== END SUBMISSION ===\n`);
 
-      if (!question_id) {
-        writeLog(`WARNING: Skipping answer with missing question_id: ${JSON.stringify(ans)}`);
+    return res.json({
+      success: true,
+      message: "Responses saved",
+      data: { duplicate: false }
+    });
+
+  } catch (error) {
+    await connection.rollback();
+    if (isRejection(error)) {
+      return res.status(400).json({
+        success: false,
+        message: error.message
+      });
+    }
+    next(error);
+  } finally {
+    connection.release();
+  }
+};
+
+/**
+ * Save several survey submissions in one transaction
+ * Each survey runs under its own savepoint, so one bad survey is reported
+ * back without discarding the rest of the batch.
+ * Surveys whose submission_id was already saved are acknowledged as duplicates.
+ * Only surveys with bad data are reported as failed, with retryable: false;
+ * a transient database error fails the whole batch with 500 so the client
+ * retries every survey in it.
+ * Body: { surveys: [ { submission_id, user_id, survey_id, area_id, ward_id, answers }, ... ] }
+ */
+export const saveResponsesBatch = async (req, res, next) => {
+  const { surveys } = req.body || {};
+
+  if (!Array.isArray(surveys) || surveys.length === 0) {
+    return res.status(400).json({
+      success: false,
+      message: "Missing required fields"
+    });
+  }
+
+  if (surveys.length > MAX_BATCH_SIZE) {
+    return res.status(413).json({
+      success: false,
+      message: `Batch too large, maximum is ${MAX_BATCH_SIZE} surveys`
+    });
+  }
+
+  const connection = await pool.getConnection();
+
+  try {
+    await connection.beginTransaction();
+
+    writeLog(`=== NEW BATCH SUBMISSION: ${surveys.length} surveys ===`);
+
+    const results = [];
+    for (let index = 0; index < surveys.length; index++) {
+      const survey = surveys[index];
+
+      if (!isValidSurvey(survey)) {
+        results.push({ index, success: false, retryable: false, message: "Missing required fields" });
         continue;
       }
 
-      writeLog(`Processing answer for question ${question_id}:`);
-      writeLog(`  - Raw answer object: ${JSON.stringify(ans)}`);
-      writeLog(`  - answer_text: ${answer_text !== undefined ? answer_text : 'undefined'} (type: ${typeof answer_text})`);
-      writeLog(`  - selected_option_id: ${selected_option_id !== undefined ? selected_option_id : 'undefined'} (type: ${typeof selected_option_id})`);
-      writeLog(`  - selected_option_ids: ${selected_option_ids !== undefined ? (Array.isArray(selected_option_ids) ? selected_option_ids.length + ' items' : selected_option_ids) : 'undefined'}`);
-
-      // First, check what column name actually exists in the database
-      const [columns] = await connection.execute('SHOW COLUMNS FROM responses');
-      const columnNames = columns.map(col => col.Field);
-      const optionColumn = columnNames.find(col => 
-        col.toLowerCase() === 'selected_option_id' || 
-        col.toLowerCase() === 'answered_option_id' ||
-        col.toLowerCase() === 'option_id'
-      ) || 'selected_option_id'; // fallback
-      
-      writeLog(`  -> Using column name: ${optionColumn}`);
-
-      // CASE 1: multiple-choice (checkbox) - check this first
-      if (Array.isArray(selected_option_ids) && selected_option_ids.length > 0) {
-        writeLog(`  -> Multiple choice: ${selected_option_ids.length} options selected`);
-        for (const opt of selected_option_ids) {
-          await connection.execute(
-            `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
-             VALUES (?, ?, ?, ?, ?, ?, NULL)`,
-            [user_id, survey_id, area_id, ward_id, question_id, opt]
-          );
-          writeLog(`    ✓ Saved option_id: ${opt}`);
+      await connection.query('SAVEPOINT batch_survey');
+      try {
+        if (await claimSubmission(connection, survey)) {
+          await connection.query('RELEASE SAVEPOINT batch_survey');
+          writeLog(`  -> Survey ${index} is a duplicate of ${survey.submission_id}, acknowledged`);
+          results.push({ index, success: true, duplicate: true });
+          continue;
         }
-      }
-      // CASE 2: single choice (radio button) - check this BEFORE text to prioritize options
-      else if (selected_option_id !== undefined && selected_option_id !== null && selected_option_id !== '' && Number(selected_option_id) > 0) {
-        writeLog(`  -> Single choice: option_id ${selected_option_id}`);
-        await connection.execute(
-          `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
-           VALUES (?, ?, ?, ?, ?, ?, NULL)`,
-          [user_id, survey_id, area_id, ward_id, question_id, Number(selected_option_id)]
-        );
-        writeLog(`    ✓ Saved option_id: ${selected_option_id}`);
-      }
-      // CASE 3: text answer - check if answer_text exists and is not empty
-      else if (answer_text !== undefined && answer_text !== null && answer_text !== '' && String(answer_text).trim() !== '') {
-        writeLog(`  -> Text answer: "${answer_text}"`);
-        await connection.execute(
-          `INSERT INTO responses (user_id, survey_id, area_id, ward_id, question_id, ${optionColumn}, answer_text)
-           VALUES (?, ?, ?, ?, ?, NULL, ?)`,
-          [user_id, survey_id, area_id, ward_id, question_id, String(answer_text).trim()]
-        );
-        writeLog(`    ✓ Saved text answer`);
-      }
-      // CASE 4: Invalid answer (should not happen)
-      else {
-        writeLog(`  -> ERROR: Invalid answer format for question ${question_id}`);
-        writeLog(`     Full answer object: ${JSON.stringify(ans, null, 2)}`);
-        throw new Error(`Invalid answer format for question ${question_id}. Answer must have either answer_text, selected_option_id, or selected_option_ids.`);
+        await insertSurveyAnswers(connection, survey);
+        await connection.query('RELEASE SAVEPOINT batch_survey');
+        results.push({ index, success: true, duplicate: false });
+      } catch (error) {
+        if (!isRejection(error)) {
+          // Not this survey's fault, roll back the whole batch
+          throw error;
+        }
+        await connection.query('ROLLBACK TO SAVEPOINT batch_survey');
+        writeLog(`  -> Survey ${index} rejected: ${error.message}`);
+        results.push({ index, success: false, retryable: false, message: error.message });
       }
     }
 
     await connection.commit();
 
-    writeLog(`✓ All responses saved successfully!`);
-    writeLog(`=== END SUBMISSION ===\n`);
+    const saved = results.filter(r => r.success).length;
+    const duplicates = results.filter(r => r.duplicate).length;
+    writeLog(`✓ Batch saved: ${saved} of ${surveys.length} surveys (${duplicates} duplicates)`);
+    writeLog(`=== END BATCH SUBMISSION ===\n`);
 
     return res.json({
       success: true,
-      message: "Responses saved"
+      message: "Batch processed",
+      data: {
+        saved,
+        duplicates,
+        failed: surveys.length - saved,
+        results
+      }
     });
 
   } catch (error) {
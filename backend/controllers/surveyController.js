@@ -1,4 +1,19 @@
-import { getQuestionsWithOptions } from "../models/surveyModel.js";
+import { getQuestionsWithOptions, getSurveyCatalog } from "../models/surveyModel.js";
+import { sendCacheable } from "../middleware/httpCache.js";
+
+export async function getSurveys(req, res, next) {
+  try {
+    const surveys = await getSurveyCatalog();
+
+    return sendCacheable(req, res, {
+      success: true,
+      data: surveys
+    });
+
+  } catch (error) {
+    next(error);
+  }
+}
 
 export async function getSurveyQuestions(req, res, next) {
   try {
@@ -6,7 +21,7 @@ export async function getSurveyQuestions(req, res, next) {
 
     const questions = await getQuestionsWithOptions(surveyId);
 
-    return res.json({
+    return sendCacheable(req, res, {
       success: true,
       data: questions
     });
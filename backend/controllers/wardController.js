@@ -1,4 +1,5 @@
 import { getWardsByArea } from '../models/wardModel.js';
+import { sendCacheable } from '../middleware/httpCache.js';
 
 /**
  * Get wards by area controller
@@ -19,7 +20,7 @@ export async function getWards(req, res, next) {
     
     const rows = await getWardsByArea(areaId);
     
-    return res.status(200).json({
+    return sendCacheable(req, res, {
       success: true,
       data: rows
     });
@@ -6,9 +6,11 @@ CREATE DATABASE IF NOT EXISTS election_survey;
 USE election_survey;
 
 -- Drop existing tables if they exist (to start fresh)
+DROP TABLE IF EXISTS submissions;
 DROP TABLE IF EXISTS responses;
 DROP TABLE IF EXISTS options;
 DROP TABLE IF EXISTS questions;
+DROP TABLE IF EXISTS surveys;
 DROP TABLE IF EXISTS wards;
 DROP TABLE IF EXISTS areas;
 DROP TABLE IF EXISTS users;
@@ -36,15 +38,28 @@ CREATE TABLE wards (
     FOREIGN KEY (area_id) REFERENCES areas(id) ON DELETE CASCADE
 );
 
--- 4. Questions Table
+-- 4. Surveys Table (catalog shown in the app)
+CREATE TABLE surveys (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    title VARCHAR(150) NOT NULL,
+    description VARCHAR(255) NULL,
+    is_active TINYINT(1) NOT NULL DEFAULT 1,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 5. Questions Table
 CREATE TABLE questions (
     id INT PRIMARY KEY AUTO_INCREMENT,
     survey_id INT NOT NULL DEFAULT 1,
     question_text TEXT NOT NULL,
-    type ENUM('text', 'single', 'multiple') NOT NULL
+    type ENUM('text', 'single', 'multiple') NOT NULL,
+    -- Input rules for text questions; NULL lets the app infer them from the text
+    field_type ENUM('text', 'name', 'age', 'phone', 'email', 'number') NULL,
+    -- Skip logic: only ask this question when this option of an earlier question was chosen
+    show_if_option_id INT NULL
 );
 
--- 5. Options Table
+-- 6. Options Table
 CREATE TABLE options (
     id INT PRIMARY KEY AUTO_INCREMENT,
     question_id INT NOT NULL,
@@ -52,7 +67,7 @@ CREATE TABLE options (
     FOREIGN KEY (question_id) REFERENCES questions(id) ON DELETE CASCADE
 );
 
--- 6. Responses Table
+-- 7. Responses Table
 CREATE TABLE responses (
     id INT PRIMARY KEY AUTO_INCREMENT,
     user_id INT NOT NULL,
@@ -67,6 +82,17 @@ CREATE TABLE responses (
     FOREIGN KEY (question_id) REFERENCES questions(id)
 );
 
+-- 8. Submissions Table
+-- One row per saved interview, keyed by the id the app generates for it,
+-- so a retried upload is acknowledged instead of being saved twice
+CREATE TABLE submissions (
+    submission_id CHAR(36) PRIMARY KEY,
+    user_id INT NOT NULL,
+    survey_id INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_submissions_created (created_at)
+);
+
 -- ============================================
 -- SAMPLE DATA
 -- ============================================
@@ -97,14 +123,18 @@ INSERT INTO wards (area_id, ward_name) VALUES
 (4, 'Civil Lines Ward 1'),
 (5, 'MG Road Ward 1');
 
+-- Insert Surveys
+INSERT INTO surveys (id, title, description) VALUES
+(1, 'Voter Sentiment', 'Party preference, issues and views on current policies');
+
 -- Insert Survey Questions
-INSERT INTO questions (survey_id, question_text, type) VALUES
-(1, 'Write your email address', 'text'),
-(1, 'Which party will win the election?', 'single'),
-(1, 'What are the major issues in your ward?', 'multiple'),
-(1, 'Rate the current government performance (1-10)', 'text'),
-(1, 'Do you support the current policies?', 'single'),
-(1, 'What improvements do you suggest?', 'text');
+INSERT INTO questions (survey_id, question_text, type, field_type) VALUES
+(1, 'Write your email address', 'text', 'email'),
+(1, 'Which party will win the election?', 'single', NULL),
+(1, 'What are the major issues in your ward?', 'multiple', NULL),
+(1, 'Rate the current government performance (1-10)', 'text', 'number'),
+(1, 'Do you support the current policies?', 'single', NULL),
+(1, 'What improvements do you suggest?', 'text', 'text');
 
 -- Insert Options for Single Choice Questions
 INSERT INTO options (question_id, option_text) VALUES
@@ -139,7 +169,11 @@ SELECT 'Areas', COUNT(*) FROM areas
 UNION ALL
 SELECT 'Wards', COUNT(*) FROM wards
 UNION ALL
+SELECT 'Surveys', COUNT(*) FROM surveys
+UNION ALL
 SELECT 'Questions', COUNT(*) FROM questions
 UNION ALL
-SELECT 'Options', COUNT(*) FROM options;
+SELECT 'Options', COUNT(*) FROM options
+UNION ALL
+SELECT 'Submissions', COUNT(*) FROM submissions;
 
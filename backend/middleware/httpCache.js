@@ -0,0 +1,46 @@
+import crypto from 'crypto';
+
+// Last known representation per path: { etag, lastModified }
+// Least recently used first, so the oldest entries go once the cap is reached
+const validators = new Map();
+const MAX_VALIDATORS = 1000;
+
+/**
+ * Send a JSON body with ETag / Last-Modified validators
+ * Clients may store the response but must revalidate it on every use;
+ * an unchanged body is answered with 304 Not Modified and no payload.
+ * @param {Object} req - Express request object
+ * @param {Object} res - Express response object
+ * @param {Object} body - JSON body to send
+ */
+export function sendCacheable(req, res, body) {
+  const json = JSON.stringify(body);
+  const etag = `"${crypto.createHash('sha1').update(json).digest('base64')}"`;
+
+  // Last-Modified is the first time this process served the current body.
+  // Keyed without the query string, which no cached endpoint reads, so
+  // clients cannot add entries by varying it
+  const key = req.baseUrl + req.path;
+  let validator = validators.get(key);
+  if (!validator || validator.etag !== etag) {
+    validator = { etag, lastModified: new Date().toUTCString() };
+  }
+  validators.delete(key);
+  validators.set(key, validator);
+  if (validators.size > MAX_VALIDATORS) {
+    validators.delete(validators.keys().next().value);
+  }
+
+  res.set({
+    'Cache-Control': 'private, no-cache',
+    'ETag': validator.etag,
+    'Last-Modified': validator.lastModified
+  });
+
+  // req.fresh compares If-None-Match / If-Modified-Since with the headers above
+  if (req.fresh) {
+    return res.status(304).end();
+  }
+
+  return res.status(200).type('application/json').send(json);
+}
@@ -0,0 +1,183 @@
+import express from 'express';
+
+// Binary survey submissions, see SurveyPayloadCodec on the Android client
+export const SURVEY_BINARY_TYPE = 'application/x-survey-responses';
+
+// Version 2 adds the 16-byte submission id in front of each survey
+const VERSION = 2;
+const MIN_VERSION = 1;
+
+// Answer type tags
+const TAG_TEXT = 0;
+const TAG_SINGLE = 1;
+const TAG_MULTIPLE = 2;
+
+/**
+ * Sequential reader over a binary payload
+ */
+class PayloadReader {
+  constructor(buffer) {
+    this.buffer = buffer;
+    this.offset = 0;
+  }
+
+  byte() {
+    if (this.offset >= this.buffer.length) {
+      throw new Error('Unexpected end of payload');
+    }
+    return this.buffer[this.offset++];
+  }
+
+  // Unsigned LEB128, up to 32 bits
+  varint() {
+    let value = 0;
+    let multiplier = 1;
+    for (let i = 0; i < 5; i++) {
+      const b = this.byte();
+      value += (b & 0x7f) * multiplier;
+      if ((b & 0x80) === 0) {
+        return value;
+      }
+      multiplier *= 128;
+    }
+    throw new Error('Varint too long');
+  }
+
+  bytes(length) {
+    if (this.offset + length > this.buffer.length) {
+      throw new Error('Unexpected end of payload');
+    }
+    const value = this.buffer.subarray(this.offset, this.offset + length);
+    this.offset += length;
+    return value;
+  }
+
+  text() {
+    const length = this.varint();
+    if (this.offset + length > this.buffer.length) {
+      throw new Error('Unexpected end of payload');
+    }
+    const value = this.buffer.toString('utf8', this.offset, this.offset + length);
+    this.offset += length;
+    return value;
+  }
+}
+
+function readHeader(reader) {
+  if (reader.byte() !== 0x53 || reader.byte() !== 0x52) { // 'S' 'R'
+    throw new Error('Bad magic');
+  }
+  const version = reader.byte();
+  if (version < MIN_VERSION || version > VERSION) {
+    throw new Error(`Unsupported version ${version}`);
+  }
+  return version;
+}
+
+/**
+ * Format 16 raw bytes as a canonical UUID string
+ * @param {Buffer} bytes - Raw UUID
+ * @returns {string} e.g. 123e4567-e89b-12d3-a456-426614174000
+ */
+function formatUuid(bytes) {
+  const hex = bytes.toString('hex');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}
+
+function readAnswer(reader) {
+  const question_id = reader.varint();
+  const tag = reader.byte();
+
+  switch (tag) {
+    case TAG_TEXT:
+      return { question_id, answer_text: reader.text() };
+    case TAG_SINGLE:
+      return { question_id, selected_option_id: reader.varint() };
+    case TAG_MULTIPLE: {
+      const count = reader.varint();
+      const selected_option_ids = [];
+      for (let i = 0; i < count; i++) {
+        selected_option_ids.push(reader.varint());
+      }
+      return { question_id, selected_option_ids };
+    }
+    default:
+      throw new Error(`Unknown answer tag ${tag}`);
+  }
+}
+
+function readSurvey(reader, version) {
+  // Version 1 clients send no id, their surveys are saved without replay protection
+  const submission_id = version >= 2 ? formatUuid(reader.bytes(16)) : undefined;
+  const survey = {
+    submission_id,
+    user_id: reader.varint(),
+    survey_id: reader.varint(),
+    area_id: reader.varint(),
+    ward_id: reader.varint(),
+    answers: []
+  };
+  const count = reader.varint();
+  for (let i = 0; i < count; i++) {
+    survey.answers.push(readAnswer(reader));
+  }
+  return survey;
+}
+
+/**
+ * Decode one binary survey into the same shape as the JSON body
+ * @param {Buffer} buffer - Binary payload
+ * @returns {Object} { submission_id, user_id, survey_id, area_id, ward_id, answers }
+ */
+export function decodeSurvey(buffer) {
+  const reader = new PayloadReader(buffer);
+  const version = readHeader(reader);
+  return readSurvey(reader, version);
+}
+
+/**
+ * Decode a binary batch into the same shape as the JSON batch body
+ * @param {Buffer} buffer - Binary payload
+ * @returns {Object} { surveys: [...] }
+ */
+export function decodeBatch(buffer) {
+  const reader = new PayloadReader(buffer);
+  const version = readHeader(reader);
+  const count = reader.varint();
+  const surveys = [];
+  for (let i = 0; i < count; i++) {
+    surveys.push(readSurvey(reader, version));
+  }
+  return { surveys };
+}
+
+const rawBody = express.raw({ type: SURVEY_BINARY_TYPE, limit: '5mb' });
+
+/**
+ * Build middleware that turns a binary body into req.body
+ * JSON requests pass through untouched, so JSON stays the fallback format.
+ * @param {Function} decode - decodeSurvey or decodeBatch
+ * @returns {Array<Function>} Express middleware chain
+ */
+function binaryBody(decode) {
+  return [
+    rawBody,
+    (req, res, next) => {
+      if (!req.is(SURVEY_BINARY_TYPE)) {
+        return next();
+      }
+      try {
+        req.body = decode(req.body);
+        next();
+      } catch (error) {
+        return res.status(400).json({
+          success: false,
+          message: `Invalid binary payload: ${error.message}`
+        });
+      }
+    }
+  ];
+}
+
+export const binarySurveyBody = binaryBody(decodeSurvey);
+export const binaryBatchBody = binaryBody(decodeBatch);
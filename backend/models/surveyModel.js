@@ -1,9 +1,99 @@
 import db from "../config/db.js";
 
+/**
+ * Build a check for an optional part of the schema that runs its query once
+ * @param {string} sql - SHOW query that returns rows when the part exists
+ * @returns {Function} Returns Promise<boolean>
+ */
+function schemaCheck(sql) {
+  let promise = null;
+  return () => {
+    if (!promise) {
+      promise = db.execute(sql)
+        .then(([rows]) => rows.length > 0)
+        .catch(error => {
+          promise = null;
+          throw error;
+        });
+    }
+    return promise;
+  };
+}
+
+// Optional column, see add_question_field_type.sql
+const hasFieldTypeColumn = schemaCheck("SHOW COLUMNS FROM questions LIKE 'field_type'");
+
+// Optional column, see add_question_branching.sql
+const hasShowIfColumn = schemaCheck("SHOW COLUMNS FROM questions LIKE 'show_if_option_id'");
+
+// Optional table, see add_surveys_table.sql
+const hasSurveysTable = schemaCheck("SHOW TABLES LIKE 'surveys'");
+
+/**
+ * Get the survey catalog
+ * Each survey carries a version fingerprinted from its questions and
+ * options, so clients can keep a downloaded questionnaire until it changes.
+ * Titles come from the surveys table; without it every survey_id in use
+ * is listed with a generic title.
+ * @returns {Promise<Array>} Array of survey objects
+ */
+export async function getSurveyCatalog() {
+  const fieldType = await hasFieldTypeColumn() ? "q.field_type" : "NULL";
+  const showIf = await hasShowIfColumn() ? "q.show_if_option_id" : "NULL";
+
+  // Changes whenever a question or one of its options is added, edited or removed
+  const versions = `
+    SELECT q.survey_id,
+           COUNT(*) AS question_count,
+           CAST(SUM(CRC32(CONCAT_WS('|', q.id, q.question_text, q.type,
+                COALESCE(${fieldType}, ''), COALESCE(${showIf}, ''),
+                COALESCE(o.signature, '')))) AS UNSIGNED) AS version
+    FROM questions q
+    LEFT JOIN (
+      SELECT question_id, SUM(CRC32(CONCAT_WS('|', id, option_text))) AS signature
+      FROM options
+      GROUP BY question_id
+    ) o ON o.question_id = q.id
+    GROUP BY q.survey_id`;
+
+  const [rows] = await hasSurveysTable()
+    ? await db.execute(
+      `SELECT s.id, s.title, s.description,
+              COALESCE(v.question_count, 0) AS question_count,
+              COALESCE(v.version, 0) AS version
+       FROM surveys s
+       LEFT JOIN (${versions}) v ON v.survey_id = s.id
+       WHERE s.is_active = 1
+       ORDER BY s.id`)
+    : await db.execute(
+      `SELECT v.survey_id AS id, NULL AS title, NULL AS description,
+              v.question_count, v.version
+       FROM (${versions}) v
+       ORDER BY v.survey_id`);
+
+  return rows.map(row => ({
+    id: row.id,
+    title: row.title || `Survey ${row.id}`,
+    description: row.description,
+    question_count: Number(row.question_count),
+    version: Number(row.version)
+  }));
+}
+
 export async function getQuestionsWithOptions(surveyId) {
+  // field_type lets the app pick input rules without guessing from the text
+  const fieldType = await hasFieldTypeColumn()
+    ? "field_type"
+    : "NULL AS field_type";
+
+  // show_if_option_id: only ask the question when that option was chosen earlier
+  const showIf = await hasShowIfColumn()
+    ? "show_if_option_id"
+    : "NULL AS show_if_option_id";
+
   // Get all questions for the survey
   const [questions] = await db.execute(
-    "SELECT id, question_text, type FROM questions WHERE survey_id = ?",
+    `SELECT id, question_text, type, ${fieldType}, ${showIf} FROM questions WHERE survey_id = ?`,
     [surveyId]
   );
 
@@ -1,8 +1,11 @@
 import express from 'express';
-import { saveResponses } from '../controllers/responseController.js';
+import { saveResponses, saveResponsesBatch } from '../controllers/responseController.js';
+import { binarySurveyBody, binaryBatchBody } from '../middleware/surveyCodec.js';
 
 const router = express.Router();
 
-router.post('/responses', saveResponses);
+// Accept JSON or the compact binary format (Content-Type: application/x-survey-responses)
+router.post('/responses', binarySurveyBody, saveResponses);
+router.post('/responses/batch', binaryBatchBody, saveResponsesBatch);
 
 export default router;
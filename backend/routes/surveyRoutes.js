@@ -1,8 +1,9 @@
 import express from "express";
-import { getSurveyQuestions } from "../controllers/surveyController.js";
+import { getSurveys, getSurveyQuestions } from "../controllers/surveyController.js";
 
 const router = express.Router();
 
+router.get("/surveys", getSurveys);
 router.get("/surveys/:surveyId/questions", getSurveyQuestions);
 
 export default router;
\ No newline at end of file
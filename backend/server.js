@@ -17,6 +17,8 @@ const PORT = process.env.PORT || 4000;
 
 // Middleware
 app.use(cors());
+// Batch uploads carry many surveys (usually gzip-compressed), so allow a larger body there
+app.use('/api/responses/batch', express.json({ limit: '5mb' }));
 app.use(express.json());
 app.use(express.urlencoded({ extended: true }));
 
@@ -29,8 +31,8 @@ app.get('/', (req, res) => {
 app.use('/api', authRoutes);     // /api/login
 app.use('/api', areaRoutes);     // /api/areas
 app.use('/api', wardRoutes);     // /api/wards/:areaId
-app.use('/api', surveyRoutes);   // /api/surveys/:surveyId/questions
-app.use('/api', responseRoutes); // /api/responses
+app.use('/api', surveyRoutes);   // /api/surveys, /api/surveys/:surveyId/questions
+app.use('/api', responseRoutes); // /api/responses, /api/responses/batch
 app.use('/api', testRoutes);     // /api/test-db, /api/test-tables, /api/test-users
 
 // Error handling middleware (must be last)
@@ -52,7 +54,12 @@ app.use((req, res) => {
 });
 
 // Start server - listen on all interfaces (0.0.0.0) to accept external connections
-app.listen(PORT, '0.0.0.0', () => {
+const server = app.listen(PORT, '0.0.0.0', () => {
   console.log(`Server is running on port ${PORT}`);
   console.log(`Server accessible at http://0.0.0.0:${PORT}`);
 });
+
+// Keep idle client connections open long enough to be reused across screens
+// (Node's 5s default forces a new handshake for almost every request on mobile)
+server.keepAliveTimeout = 65000;
+server.headersTimeout = 66000;